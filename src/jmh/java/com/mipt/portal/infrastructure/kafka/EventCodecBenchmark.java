@@ -0,0 +1,59 @@
+package com.mipt.portal.infrastructure.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mipt.portal.dto.kafka.KafkaEventPayloads;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Бинарный конверт EventCodec против JSON-конверта на событии announcement.status_changed:
+ * кодирование и декодирование с чтением adId (как в KafkaMessageService.readAdId).
+ * Запуск: mvn -Pjmh test -Djmh.args=EventCodecBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventCodecBenchmark {
+
+  private static final String EVENT_TYPE = "announcement.status_changed";
+
+  @Param({"BINARY", "JSON"})
+  public EventCodec.Format format;
+
+  private EventCodec codec;
+  private KafkaEventPayloads.AnnouncementStatusChanged payload;
+  private byte[] message;
+
+  @Setup
+  public void setUp() {
+    codec = new EventCodec(new ObjectMapper().findAndRegisterModules(), format);
+    payload = new KafkaEventPayloads.AnnouncementStatusChanged(
+        123_456L, "UNDER_MODERATION", "REJECTED", 42L, "Фото не соответствует описанию");
+    message = codec.encode(EVENT_TYPE, 1_700_000_000_000L, payload);
+    // Размер сообщения JMH не меряет — печатаем его в вывод форка
+    System.out.printf("%n%s message size: %d bytes%n", format, message.length);
+  }
+
+  @Benchmark
+  public byte[] encode() {
+    return codec.encode(EVENT_TYPE, 1_700_000_000_000L, payload);
+  }
+
+  @Benchmark
+  public Long decodeAdId() {
+    return codec.readLong(codec.decode(message), "adId");
+  }
+}
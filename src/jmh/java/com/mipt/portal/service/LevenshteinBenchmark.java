@@ -0,0 +1,93 @@
+package com.mipt.portal.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Сравнение полной матрицы Левенштейна (similarity) с ограниченным ядром (isSimilar)
+ * на словах из заголовков объявлений и запросах с опечатками.
+ * Время — на одну пару «запрос × слово».
+ * Запуск: mvn -Pjmh test -Djmh.args=LevenshteinBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LevenshteinBenchmark {
+
+  private static final String[] TITLES = {
+      "Ноутбук Lenovo ThinkPad в отличном состоянии",
+      "Велосипед горный почти новый",
+      "Учебник по матанализу Демидович",
+      "iPhone 12 Pro 128GB graphite",
+      "Кресло офисное с подлокотниками",
+      "Электрочайник Bosch стеклянный",
+      "Книга Feynman Lectures on Physics",
+      "Монитор Samsung 27 дюймов",
+      "Гитара акустическая Yamaha F310",
+      "Микроволновка LG почти не пользовались"
+  };
+
+  private static final String[] QUERIES = {
+      "ноутбк", "велосепед", "демидовичь", "graphit", "стеклянный", "физика", "самсунг", "yamah"
+  };
+
+  // Слов в TITLES; @OperationsPerInvocation требует константу, setUp сверяет её с корпусом
+  private static final int WORDS = 44;
+  private static final int PAIRS = 8 * WORDS;
+
+  @Param({"0.7"})
+  public double threshold;
+
+  private String[] words;
+
+  @Setup
+  public void setUp() {
+    List<String> all = new ArrayList<>();
+    for (String title : TITLES) {
+      for (String word : title.toLowerCase().split("\\s+")) {
+        all.add(word);
+      }
+    }
+    words = all.toArray(String[]::new);
+    if (words.length * QUERIES.length != PAIRS) {
+      throw new IllegalStateException("PAIRS не совпадает с корпусом: " + words.length * QUERIES.length);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(PAIRS)
+  public void fullMatrix(Blackhole blackhole) {
+    for (String query : QUERIES) {
+      for (String word : words) {
+        blackhole.consume(LevenshteinSearch.similarity(word, query) >= threshold);
+      }
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(PAIRS)
+  public void bounded(Blackhole blackhole) {
+    for (String query : QUERIES) {
+      for (String word : words) {
+        blackhole.consume(LevenshteinSearch.isSimilar(word, query, threshold));
+      }
+    }
+  }
+}
@@ -200,7 +200,7 @@ const AdDetails = () => {
             {hasPhoto ? (
               <img
                 className="mainPhoto"
-                src={`${API_BASE}/ad-photo?adId=${announcement.id}&photoIndex=0`}
+                src={`${API_BASE}/ad-photo?adId=${announcement.id}&photoIndex=0&size=large`}
                 alt={t('home.adPhotoAlt')}
                 onError={() => setHasPhoto(false)}
               />
@@ -5,11 +5,16 @@ import NotificationBell from './NotificationBell';
 import Icon from './Icon';
 import { useI18n } from '../i18n/I18nProvider';
 
+const API_BASE = 'http://localhost:8080';
+const FAVORITES_PAGE_SIZE = 20;
+
 const Dashboard = () => {
   const { t, language } = useI18n();
   const [user, setUser]               = useState(null);
   const [ads, setAds]                 = useState([]);
   const [favoriteAds, setFavoriteAds] = useState([]);
+  const [favoritesCursor, setFavoritesCursor] = useState(null);
+  const [favoritesLoadingMore, setFavoritesLoadingMore] = useState(false);
   const [bookedAds, setBookedAds]     = useState([]);
   const [loading, setLoading]         = useState(true);
   const [successMessage, setSuccessMessage] = useState('');
@@ -32,27 +37,50 @@ const Dashboard = () => {
   const loadUserData = async () => {
     setLoading(true);
     try {
-      const userRes = await fetch('http://localhost:8080/api/users/me', { credentials: 'include' });
+      const userRes = await fetch(`${API_BASE}/api/users/me`, { credentials: 'include' });
       if (!userRes.ok) { if (userRes.status === 401) window.location.href = '/login'; return; }
       setUser(await userRes.json());
 
-      const adsRes = await fetch('http://localhost:8080/api/announcements/my', { credentials: 'include' });
+      const adsRes = await fetch(`${API_BASE}/api/announcements/my`, { credentials: 'include' });
       if (adsRes.ok) setAds((await adsRes.json()).filter(a => a.status !== 'DELETED'));
 
-      const favRes = await fetch('http://localhost:8080/api/favorites/ads', { credentials: 'include' });
-      if (favRes.ok) setFavoriteAds(await favRes.json());
+      const favRes = await fetchFavoritesPage(null);
+      if (favRes.ok) {
+        const page = await favRes.json();
+        setFavoriteAds(page.items);
+        setFavoritesCursor(page.hasMore ? page.nextCursor : null);
+      }
 
-      const bookedRes = await fetch('http://localhost:8080/api/v1/bookings/my', { credentials: 'include' });
+      const bookedRes = await fetch(`${API_BASE}/api/v1/bookings/my`, { credentials: 'include' });
       if (bookedRes.ok) setBookedAds(await bookedRes.json());
     } catch { setErrorMessage(t('dashboard.loadDataError', 'Failed to load data')); }
     finally { setLoading(false); }
   };
 
+  const fetchFavoritesPage = (cursor) => {
+    const params = new URLSearchParams({ limit: FAVORITES_PAGE_SIZE });
+    if (cursor) params.set('cursor', cursor);
+    return fetch(`${API_BASE}/api/favorites/feed?${params}`, { credentials: 'include' });
+  };
+
+  const loadMoreFavorites = async () => {
+    if (!favoritesCursor || favoritesLoadingMore) return;
+    setFavoritesLoadingMore(true);
+    try {
+      const res = await fetchFavoritesPage(favoritesCursor);
+      if (!res.ok) { setErrorMessage(t('dashboard.loadDataError', 'Failed to load data')); return; }
+      const page = await res.json();
+      setFavoriteAds(prev => [...prev, ...page.items.filter(item => !prev.some(a => a.id === item.id))]);
+      setFavoritesCursor(page.hasMore ? page.nextCursor : null);
+    } catch { setErrorMessage(t('dashboard.loadDataError', 'Failed to load data')); }
+    finally { setFavoritesLoadingMore(false); }
+  };
+
   const handlePasswordChanged = async (currentPassword, newPassword, confirmPassword) => {
     if (newPassword !== confirmPassword) { setErrorMessage(t('dashboard.passwordsDontMatch', 'Passwords do not match!')); return false; }
     if (newPassword.length < 8) { setErrorMessage(t('dashboard.passwordTooShort', 'Password must be at least 8 characters!')); return false; }
     try {
-      const res = await fetch('http://localhost:8080/api/users/change-password', {
+      const res = await fetch(`${API_BASE}/api/users/change-password`, {
         method: 'POST', credentials: 'include',
         headers: { 'Content-Type': 'application/json' },
         body: JSON.stringify({ currentPassword, newPassword, confirmPassword }),
@@ -67,7 +95,7 @@ const Dashboard = () => {
     e.preventDefault();
     if (!window.confirm(t('dashboard.confirmDeleteAccount', 'Are you sure? This cannot be undone.'))) return;
     try {
-      const res = await fetch('http://localhost:8080/api/users/delete-account', {
+      const res = await fetch(`${API_BASE}/api/users/delete-account`, {
         method: 'DELETE', credentials: 'include',
         headers: { 'Content-Type': 'application/json' },
         body: JSON.stringify({ password: deletePassword }),
@@ -78,7 +106,7 @@ const Dashboard = () => {
   };
 
   const handleLogout = async () => {
-    try { await fetch('http://localhost:8080/api/users/logout', { method: 'POST', credentials: 'include' }); }
+    try { await fetch(`${API_BASE}/api/users/logout`, { method: 'POST', credentials: 'include' }); }
     catch {}
     window.location.href = '/login';
   };
@@ -86,7 +114,7 @@ const Dashboard = () => {
   const handleUnfavorite = async (e, adId) => {
     e.stopPropagation();
     try {
-      const res = await fetch(`http://localhost:8080/api/favorites/${adId}`, { method: 'POST', credentials: 'include' });
+      const res = await fetch(`${API_BASE}/api/favorites/${adId}`, { method: 'POST', credentials: 'include' });
       if (res.ok) setFavoriteAds(prev => prev.filter(a => a.id !== adId));
     } catch { setErrorMessage('Error updating favorites'); }
   };
@@ -94,7 +122,7 @@ const Dashboard = () => {
   const handleDeleteAd = async (adId) => {
     if (!window.confirm(t('dashboard.confirmDeleteAd', 'Delete this ad?'))) return;
     try {
-      const res = await fetch(`http://localhost:8080/api/announcements/${adId}`, { method: 'DELETE', credentials: 'include' });
+      const res = await fetch(`${API_BASE}/api/announcements/${adId}`, { method: 'DELETE', credentials: 'include' });
       if (res.ok) { setSuccessMessage(t('dashboard.adDeleted', 'Ad deleted')); loadUserData(); }
       else setErrorMessage(t('dashboard.deleteAdError', 'Error deleting ad'));
     } catch { setErrorMessage(t('dashboard.deleteAdError', 'Error deleting ad')); }
@@ -185,7 +213,7 @@ const Dashboard = () => {
             <span>PORTAL</span>
           </a>
           <div className="dash-topbar-right">
-            <NotificationBell adIds={ads.map(a => a.id)} />
+            <NotificationBell />
             <button className="db-btn-ghost" onClick={handleLogout}>{t('common.signOut')}</button>
           </div>
         </header>
@@ -258,7 +286,7 @@ const Dashboard = () => {
                 className={`db-nav-item${activeSection === 'favorites' ? ' active' : ''}`}
                 onClick={() => selectSection('favorites')}
               >
-                ♡ {t('dashboard.filterFavorites', 'Favorites')} <span className="db-count">{favoriteAds.length}</span>
+                ♡ {t('dashboard.filterFavorites', 'Favorites')} <span className="db-count">{favoriteAds.length}{favoritesCursor ? '+' : ''}</span>
               </button>
 
               <button
@@ -325,7 +353,7 @@ const Dashboard = () => {
                   <div key={ad.id} className="db-ad-card" onClick={() => window.open(`/ad/${ad.id}`, '_blank')}>
                     <div className="db-ad-image">
                       <img
-                        src={`http://localhost:8080/ad-photo?adId=${ad.id}&photoIndex=0`}
+                        src={`${API_BASE}/ad-photo?adId=${ad.id}&photoIndex=0&size=medium`}
                         alt={ad.title}
                         onError={e => { e.currentTarget.style.display = 'none'; e.currentTarget.nextSibling.style.display = 'flex'; }}
                       />
@@ -346,7 +374,7 @@ const Dashboard = () => {
                       )}
                     </div>
                     <div className="db-ad-body">
-                      <div className="db-ad-price">{formatPrice(ad.price)}</div>
+                      {ad.price != null && <div className="db-ad-price">{formatPrice(ad.price)}</div>}
                       <div className="db-ad-title">{ad.title}</div>
                       {ad.location && (
                         <div className="db-ad-location">
@@ -371,6 +399,14 @@ const Dashboard = () => {
                 ))}
               </div>
             )}
+
+            {activeSection === 'favorites' && favoritesCursor && (
+              <div className="db-load-more">
+                <button className="db-btn-secondary" onClick={loadMoreFavorites} disabled={favoritesLoadingMore}>
+                  {favoritesLoadingMore ? t('common.loading', 'Loading...') : t('dashboard.loadMore', 'Load more')}
+                </button>
+              </div>
+            )}
           </main>
         </div>
       </div>
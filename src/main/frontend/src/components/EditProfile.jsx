@@ -309,8 +309,7 @@ const EditProfile = () => {
         <div className="page-title">Редактирование профиля</div>
 
         <div className="current-info">
-          <strong>Email:</strong> {user.email}<br />
-          <strong>Количество объявлений:</strong> {user.adList?.length || 0}
+          <strong>Email:</strong> {user.email}
         </div>
 
         <form onSubmit={handleSubmit}>
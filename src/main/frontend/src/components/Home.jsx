@@ -240,7 +240,7 @@ const Home = () => {
                                     >
                                         <div className="ad-image-wrap">
                                             <img
-                                                src={`${API_BASE}/ad-photo?adId=${ad.id}&photoIndex=0`}
+                                                src={`${API_BASE}/ad-photo?adId=${ad.id}&photoIndex=0&size=medium`}
                                                 alt={ad.title || t('home.adPhotoAlt')}
                                                 onError={(e) => {
                                                     e.currentTarget.style.display = 'none';
@@ -1,46 +1,29 @@
-import React, { useEffect, useMemo, useState } from 'react';
+import React, { useEffect, useRef, useState } from 'react';
 import './NotificationBell.css';
 import { useI18n } from '../i18n/I18nProvider';
 
 const API_BASE = 'http://localhost:8080';
+const SUMMARY_POLL_MS = 30000;
 
-const NotificationBell = ({ adIds = [] }) => {
+const NotificationBell = () => {
   const { t } = useI18n();
-  const normalizedAdIds = useMemo(() => adIds.filter(Boolean), [adIds]);
   const [isOpen, setIsOpen] = useState(false);
   const [loading, setLoading] = useState(false);
   const [notifications, setNotifications] = useState([]);
   const [unreadCount, setUnreadCount] = useState(0);
+  const latestIdRef = useRef(null);
 
+  // Одна страница входящих вместе со счётчиком непрочитанных
   const loadNotifications = async () => {
-    if (!normalizedAdIds.length) {
-      setNotifications([]);
-      setUnreadCount(0);
-      return;
-    }
-
     setLoading(true);
     try {
-      const [listResp, countResp] = await Promise.all([
-        fetch(`${API_BASE}/api/notifications/user`, {
-          method: 'POST',
-          headers: { 'Content-Type': 'application/json' },
-          credentials: 'include',
-          body: JSON.stringify(normalizedAdIds)
-        }),
-        fetch(`${API_BASE}/api/notifications/user/unread-count`, {
-          method: 'POST',
-          headers: { 'Content-Type': 'application/json' },
-          credentials: 'include',
-          body: JSON.stringify(normalizedAdIds)
-        })
-      ]);
-
-      const listData = listResp.ok ? await listResp.json() : [];
-      const countData = countResp.ok ? await countResp.json() : { unreadCount: 0 };
-
-      setNotifications(Array.isArray(listData) ? listData : []);
-      setUnreadCount(Number(countData.unreadCount || 0));
+      const resp = await fetch(`${API_BASE}/api/notifications?limit=50`, {
+        credentials: 'include'
+      });
+      const page = resp.ok ? await resp.json() : null;
+
+      setNotifications(Array.isArray(page?.items) ? page.items : []);
+      setUnreadCount(Number(page?.unreadCount || 0));
     } catch (e) {
       setNotifications([]);
       setUnreadCount(0);
@@ -49,10 +32,44 @@ const NotificationBell = ({ adIds = [] }) => {
     }
   };
 
+  // Сводка непрочитанных; список перечитываем, когда появилось новое уведомление
+  const applySummary = (summary) => {
+    setUnreadCount(Number(summary.total || 0));
+    if (summary.latestNotificationId !== latestIdRef.current) {
+      latestIdRef.current = summary.latestNotificationId;
+      loadNotifications();
+    }
+  };
+
+  const pollSummary = async () => {
+    try {
+      const resp = await fetch(`${API_BASE}/api/notifications/unread-summary`, {
+        credentials: 'include'
+      });
+      if (resp.ok) applySummary(await resp.json());
+    } catch (e) {
+      // следующий опрос повторит попытку
+    }
+  };
+
+  // Сервер сам присылает сводку по SSE; опрос остаётся только для браузеров без EventSource
   useEffect(() => {
-    loadNotifications();
+    if (typeof EventSource === 'undefined') {
+      pollSummary();
+      const timer = setInterval(pollSummary, SUMMARY_POLL_MS);
+      return () => clearInterval(timer);
+    }
+    const source = new EventSource(`${API_BASE}/api/notifications/stream`, { withCredentials: true });
+    source.addEventListener('unread', (e) => {
+      try {
+        applySummary(JSON.parse(e.data));
+      } catch (err) {
+        // битое событие пропускаем
+      }
+    });
+    return () => source.close();
     // eslint-disable-next-line react-hooks/exhaustive-deps
-  }, [normalizedAdIds.join(',')]);
+  }, []);
 
   useEffect(() => {
     if (!isOpen) return;
@@ -81,15 +98,17 @@ const NotificationBell = ({ adIds = [] }) => {
       method: 'DELETE',
       credentials: 'include'
     });
+    const removed = notifications.find((n) => n.id === id);
     setNotifications((prev) => prev.filter((n) => n.id !== id));
+    if (removed && !removed.isRead) {
+      setUnreadCount((prev) => Math.max(0, prev - 1));
+    }
   };
 
   const markAllAsRead = async () => {
-    await fetch(`${API_BASE}/api/notifications/user/read-all`, {
+    await fetch(`${API_BASE}/api/notifications/read-all`, {
       method: 'POST',
-      headers: { 'Content-Type': 'application/json' },
-      credentials: 'include',
-      body: JSON.stringify(normalizedAdIds)
+      credentials: 'include'
     });
     setNotifications((prev) => prev.map((n) => ({ ...n, isRead: true })));
     setUnreadCount(0);
@@ -249,7 +249,7 @@ function ModeratorDashboard() {
                   {/* Photo */}
                   <div className="mod-ad-photo-wrap">
                     <img
-                      src={`${API_BASE}/ad-photo?adId=${ad.id}&photoIndex=0`}
+                      src={`${API_BASE}/ad-photo?adId=${ad.id}&photoIndex=0&size=medium`}
                       alt={ad.title}
                       onError={e => {
                         e.currentTarget.style.display = 'none';
@@ -183,6 +183,7 @@ export const translations = {
       noBooked: 'У вас нет забронированных товаров.',
       createFirst: 'Создайте первое объявление!',
       removeFromFavorites: 'Удалить из избранного',
+      loadMore: 'Показать ещё',
       edit: 'Редактировать',
       delete: 'Удалить',
       deleteAccount: 'Удалить аккаунт',
@@ -491,6 +492,7 @@ export const translations = {
       noBooked: 'You have no booked items.',
       createFirst: 'Create your first listing!',
       removeFromFavorites: 'Remove from favorites',
+      loadMore: 'Load more',
       edit: 'Edit',
       delete: 'Delete',
       deleteAccount: 'Delete Account',
@@ -2,6 +2,7 @@ package com.mipt.portal.config;
 
 import com.mipt.portal.enums.Role;
 import com.mipt.portal.entity.User;
+import com.mipt.portal.service.MediaService;
 import com.mipt.portal.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -21,7 +22,6 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.time.Instant;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.List;
@@ -36,6 +36,7 @@ public class DataInitializer implements CommandLineRunner {
     private final PasswordEncoder passwordEncoder;
     private final AnnouncementRepository announcementRepository;
     private final JdbcTemplate jdbcTemplate;
+    private final MediaService mediaService;
 
     @Override
     @Transactional
@@ -152,10 +153,6 @@ public class DataInitializer implements CommandLineRunner {
         user.setStudyProgram(seed.studyProgram());
         user.setCourse(seed.course());
 
-        if (user.getAdList() == null) {
-            user.setAdList(new ArrayList<>());
-        }
-
         if (user.getRoles() == null) {
             user.setRoles(new java.util.HashSet<>());
         }
@@ -256,13 +253,13 @@ public class DataInitializer implements CommandLineRunner {
         announcement.setStatus(AdStatus.ACTIVE);
         announcement.setTags(seed.tags());
         announcement.setTagsCount(seed.tags().size());
-        announcement.setPhoto(fileToBytes(seed.imagePath()));
         if (announcement.getCreatedAt() == null) {
             announcement.setCreatedAt(Instant.now());
         }
         announcement.setUpdatedAt(Instant.now());
 
-        announcementRepository.save(announcement);
+        announcement = announcementRepository.save(announcement);
+        mediaService.savePhoto(announcement.getId(), fileToBytes(seed.imagePath()));
         log.info("Ensured seeded ad '{}' for {}", seed.title(), seed.authorEmail());
     }
 
@@ -300,10 +297,6 @@ public class DataInitializer implements CommandLineRunner {
         if (user.getCoins() < 0) {
             user.setCoins(0);
         }
-        if (user.getAdList() == null) {
-            user.setAdList(new ArrayList<>());
-        }
-
         Address address = user.getAddress() != null ? user.getAddress() : new Address();
         if (address.getCity() == null || address.getCity().isBlank()) {
             address.setCity("Долгопрудный");
@@ -1,10 +1,22 @@
 package com.mipt.portal.config;
 
+import java.util.Map;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
 
 @Configuration
 @EnableKafka
@@ -34,43 +46,139 @@ public class KafkaConfig {
   @Value("${app.kafka.topic.notification:portal.notification.events}")
   private String notificationTopic;
 
+  @Value("${app.kafka.producer.linger-ms:20}")
+  private int lingerMs;
+
+  @Value("${app.kafka.producer.batch-size:65536}")
+  private int batchSize;
+
+  @Value("${app.kafka.producer.compression-type:lz4}")
+  private String compressionType;
+
+  @Value("${app.kafka.producer.acks:all}")
+  private String acks;
+
+  @Value("${app.kafka.producer.idempotence:true}")
+  private boolean idempotence;
+
+  @Value("${app.kafka.producer.delivery-timeout-ms:120000}")
+  private int deliveryTimeoutMs;
+
+  @Value("${app.kafka.replication-factor:1}")
+  private int replicationFactor;
+
+  @Value("${app.kafka.consumer.concurrency:3}")
+  private int consumerConcurrency;
+
+  @Value("${app.kafka.consumer.max-poll-records:500}")
+  private int maxPollRecords;
+
+  @Value("${app.kafka.consumer.fetch-min-bytes:1}")
+  private int fetchMinBytes;
+
+  @Value("${app.kafka.consumer.fetch-max-wait-ms:500}")
+  private int fetchMaxWaitMs;
+
+  /**
+   * Продюсер под поток мелких событий: записи копятся linger.ms и уходят сжатыми пачками,
+   * идемпотентность не даёт повторам плодить дубли и переставлять записи внутри партиции.
+   * Остальное (адреса, сериализаторы) берётся из spring.kafka.producer; значения — байты EventCodec.
+   */
   @Bean
-  public NewTopic auditTopic() {
-    return new NewTopic(auditTopic, 1, (short) 1);
+  public ProducerFactory<String, byte[]> producerFactory(KafkaProperties kafkaProperties) {
+    Map<String, Object> props = kafkaProperties.buildProducerProperties();
+    props.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+    props.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+    props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+    props.put(ProducerConfig.ACKS_CONFIG, acks);
+    props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, idempotence);
+    props.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, deliveryTimeoutMs);
+    if (idempotence) {
+      props.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+    }
+    return new DefaultKafkaProducerFactory<>(props);
   }
 
   @Bean
-  public NewTopic userTopic() {
-    return new NewTopic(userTopic, 1, (short) 1);
+  public KafkaTemplate<String, byte[]> kafkaTemplate(ProducerFactory<String, byte[]> producerFactory) {
+    return new KafkaTemplate<>(producerFactory);
   }
 
+  /**
+   * Общая фабрика потребителей: оффсеты коммитит контейнер, а не фоновый auto-commit клиента.
+   */
   @Bean
-  public NewTopic announcementTopic() {
-    return new NewTopic(announcementTopic, 1, (short) 1);
+  public ConsumerFactory<String, byte[]> consumerFactory(KafkaProperties kafkaProperties) {
+    Map<String, Object> props = kafkaProperties.buildConsumerProperties();
+    props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+    props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+    props.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, fetchMinBytes);
+    props.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, fetchMaxWaitMs);
+    return new DefaultKafkaConsumerFactory<>(props);
   }
 
+  /**
+   * Пакетные слушатели: concurrency потоков делят партиции топика, каждый poll отдаётся слушателю
+   * списком до max-poll-records записей, а оффсет коммитится только после
+   * Acknowledgment.acknowledge() — неподтверждённая пачка будет перечитана.
+   */
   @Bean
-  public NewTopic moderationTopic() {
-    return new NewTopic(moderationTopic, 1, (short) 1);
+  public ConcurrentKafkaListenerContainerFactory<String, byte[]> batchListenerContainerFactory(
+      ConsumerFactory<String, byte[]> consumerFactory) {
+    ConcurrentKafkaListenerContainerFactory<String, byte[]> factory = new ConcurrentKafkaListenerContainerFactory<>();
+    factory.setConsumerFactory(consumerFactory);
+    factory.setConcurrency(consumerConcurrency);
+    factory.setBatchListener(true);
+    factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+    return factory;
   }
 
+  /**
+   * Топики партиционированы по ключу сообщения — id агрегата (объявления, пользователя, брони…),
+   * поэтому события одного агрегата остаются упорядоченными внутри своей партиции.
+   * Увеличенное число партиций KafkaAdmin применит и к уже созданному топику; уменьшить его нельзя.
+   */
   @Bean
-  public NewTopic bookingTopic() {
-    return new NewTopic(bookingTopic, 1, (short) 1);
+  public NewTopic auditTopic(@Value("${app.kafka.partitions.audit:${app.kafka.partitions.default:6}}") int partitions) {
+    return topic(auditTopic, partitions);
   }
 
   @Bean
-  public NewTopic commentTopic() {
-    return new NewTopic(commentTopic, 1, (short) 1);
+  public NewTopic userTopic(@Value("${app.kafka.partitions.user:${app.kafka.partitions.default:6}}") int partitions) {
+    return topic(userTopic, partitions);
   }
 
   @Bean
-  public NewTopic supportTopic() {
-    return new NewTopic(supportTopic, 1, (short) 1);
+  public NewTopic announcementTopic(@Value("${app.kafka.partitions.announcement:${app.kafka.partitions.default:6}}") int partitions) {
+    return topic(announcementTopic, partitions);
   }
 
   @Bean
-  public NewTopic notificationTopic() {
-    return new NewTopic(notificationTopic, 1, (short) 1);
+  public NewTopic moderationTopic(@Value("${app.kafka.partitions.moderation:${app.kafka.partitions.default:6}}") int partitions) {
+    return topic(moderationTopic, partitions);
+  }
+
+  @Bean
+  public NewTopic bookingTopic(@Value("${app.kafka.partitions.booking:${app.kafka.partitions.default:6}}") int partitions) {
+    return topic(bookingTopic, partitions);
+  }
+
+  @Bean
+  public NewTopic commentTopic(@Value("${app.kafka.partitions.comment:${app.kafka.partitions.default:6}}") int partitions) {
+    return topic(commentTopic, partitions);
+  }
+
+  @Bean
+  public NewTopic supportTopic(@Value("${app.kafka.partitions.support:${app.kafka.partitions.default:6}}") int partitions) {
+    return topic(supportTopic, partitions);
+  }
+
+  @Bean
+  public NewTopic notificationTopic(@Value("${app.kafka.partitions.notification:${app.kafka.partitions.default:6}}") int partitions) {
+    return topic(notificationTopic, partitions);
+  }
+
+  private NewTopic topic(String name, int partitions) {
+    return TopicBuilder.name(name).partitions(partitions).replicas(replicationFactor).build();
   }
 }
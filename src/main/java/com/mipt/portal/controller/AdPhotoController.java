@@ -1,65 +1,113 @@
 package com.mipt.portal.controller;
 
-import com.mipt.portal.entity.Announcement;
-import com.mipt.portal.service.AnnouncementService;
-import lombok.RequiredArgsConstructor;
+import com.mipt.portal.dto.PhotoMetadata;
+import com.mipt.portal.enums.PhotoSize;
+import com.mipt.portal.service.MediaService;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpHeaders;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
 
-import java.io.ByteArrayInputStream;
-import java.net.URLConnection;
+import java.time.Duration;
+import java.util.Optional;
 
 @Slf4j
 @Controller
-@RequiredArgsConstructor
 public class AdPhotoController {
 
-  private final AnnouncementService announcementService;
+  private final MediaService mediaService;
+  private final CacheControl cacheControl;
+
+  public AdPhotoController(
+    MediaService mediaService,
+    @Value("${app.storage.photos.cache-max-age:1h}") Duration cacheMaxAge) {
+    this.mediaService = mediaService;
+    // URL фото не меняется при замене картинки, поэтому после max-age браузер обязан перепроверить ETag
+    this.cacheControl = CacheControl.maxAge(cacheMaxAge).cachePublic().mustRevalidate();
+  }
 
   @GetMapping("/ad-photo")
-  public ResponseEntity<byte[]> getPhoto(
+  public ResponseEntity<Resource> getPhoto(
     @RequestParam("adId") Long adId,
-    @RequestParam(value = "photoIndex", defaultValue = "0") int photoIndex) {
+    @RequestParam(value = "photoIndex", defaultValue = "0") int photoIndex,
+    @RequestParam(value = "size", required = false) String size,
+    WebRequest request) {
+
+    PhotoSize photoSize;
+    try {
+      photoSize = PhotoSize.fromParam(size);
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().build();
+    }
 
     try {
-      Announcement ad = announcementService.findById(adId);
+      // Читается ровно одна строка ad_photos для запрошенного индекса
+      Optional<PhotoMetadata> metadata = mediaService.getPhotoMetadata(adId, photoIndex);
 
-      if (ad == null) {
-        log.warn("Ad not found: {}", adId);
+      if (metadata.isEmpty()) {
+        log.warn("No photo {} found for ad: {}", photoIndex, adId);
         return ResponseEntity.notFound().build();
       }
 
-      // Получаем фото из поля photo
-      byte[] photoData = ad.getPhoto();
+      PhotoMetadata photo = metadata.get();
+      // Пока уменьшенная копия не готова, отдаём оригинал — с его собственным ETag
+      Optional<Resource> variant = (photoSize != null)
+        ? mediaService.loadVariant(photo.key(), photoSize)
+        : Optional.empty();
+
+      // Ключ фото — SHA-256 содержимого, так что он же служит сильным ETag
+      String etag = variant.isPresent()
+        ? "\"" + photo.key() + "-" + photoSize.getVariantName() + "\""
+        : "\"" + photo.key() + "\"";
+      long lastModified = photo.updatedAt() != null ? photo.updatedAt().toEpochMilli() : -1;
 
-      if (photoData == null || photoData.length == 0) {
-        log.warn("No photo found for ad: {}", adId);
+      if (request.checkNotModified(etag, lastModified)) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+          .eTag(etag)
+          .cacheControl(cacheControl)
+          .build();
+      }
+
+      Optional<Resource> resource = variant.isPresent() ? variant : mediaService.loadPhoto(photo.key());
+      if (resource.isEmpty()) {
+        log.warn("Photo {} for ad {} is missing in photo store", photo.key(), adId);
         return ResponseEntity.notFound().build();
       }
 
-      // Игнорируем photoIndex, так как только одно фото
-      String detectedContentType = URLConnection.guessContentTypeFromStream(new ByteArrayInputStream(photoData));
-      MediaType mediaType = (detectedContentType != null)
-        ? MediaType.parseMediaType(detectedContentType)
+      String contentType;
+      if (variant.isPresent()) {
+        contentType = MediaType.IMAGE_JPEG_VALUE;
+      } else if (photo.contentType() != null) {
+        contentType = photo.contentType();
+      } else {
+        contentType = mediaService.detectContentType(photo.key());
+      }
+      MediaType mediaType = (contentType != null)
+        ? MediaType.parseMediaType(contentType)
         : MediaType.APPLICATION_OCTET_STREAM;
 
-      HttpHeaders headers = new HttpHeaders();
-      headers.setContentType(mediaType);
-      headers.setContentLength(photoData.length);
+      log.debug("Serving photo for ad: {}", adId);
 
-      log.info("Serving photo for ad: {}, size: {} bytes", adId, photoData.length);
-
-      return new ResponseEntity<>(photoData, headers, HttpStatus.OK);
+      // Content-Length и Range (206 Partial Content) Spring выставляет сам для тела-Resource
+      ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+        .contentType(mediaType)
+        .eTag(etag)
+        .cacheControl(cacheControl);
+      if (lastModified > 0) {
+        response.lastModified(lastModified);
+      }
+      return response.body(resource.get());
 
     } catch (Exception e) {
       log.error("Error loading photo for ad {}: {}", adId, e.getMessage(), e);
       return ResponseEntity.internalServerError().build();
     }
   }
-}
\ No newline at end of file
+}
@@ -44,12 +44,12 @@ public class AdWebController {
       return LOGIN_REDIRECT;
     }
 
-    model.addAttribute("categories", announcementService.getAllCategories());
+    List<Map<String, Object>> categories = announcementService.getAllCategories();
+    model.addAttribute("categories", categories);
     model.addAttribute("tags", announcementService.getTagsWithValues());
 
     if (category != null && !category.isEmpty()) {
       model.addAttribute("selectedCategory", category);
-      List<Map<String, Object>> categories = announcementService.getAllCategories();
       Long categoryId = null;
       for (Map<String, Object> cat : categories) {
         if (cat.get("name").equals(category)) {
@@ -122,7 +122,7 @@ public class AdWebController {
       }
 
       if (photo != null && !photo.isEmpty()) {
-        mediaService.savePhoto(ad.getId(), mediaService.multipartFileToBytes(photo));
+        mediaService.savePhoto(ad.getId(), photo);
       }
 
       if ("publish".equals(action)) {
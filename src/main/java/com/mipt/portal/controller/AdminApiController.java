@@ -10,8 +10,11 @@ import com.mipt.portal.entity.AdminActionAudit;
 import com.mipt.portal.entity.User;
 import com.mipt.portal.enums.Role;
 import com.mipt.portal.exception.InsufficientCoinsException;
+import com.mipt.portal.infrastructure.kafka.KafkaDeliveryStats;
+import com.mipt.portal.infrastructure.sse.SseConnectionRegistry;
 import com.mipt.portal.repository.AdminActionAuditRepository;
 import com.mipt.portal.service.AdminService;
+import com.mipt.portal.service.CategoryService;
 import com.mipt.portal.service.EmailService;
 import com.mipt.portal.service.UserService;
 import lombok.RequiredArgsConstructor;
@@ -22,6 +25,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/admin")
@@ -33,6 +37,9 @@ public class AdminApiController {
     private final AdminService adminService;
     private final AdminActionAuditRepository adminActionAuditRepository;
     private final EmailService emailService;
+    private final CategoryService categoryService;
+    private final KafkaDeliveryStats kafkaDeliveryStats;
+    private final SseConnectionRegistry sseConnectionRegistry;
 
     @GetMapping("/dashboard")
     public AdminDashboardResponse dashboard() {
@@ -126,6 +133,28 @@ public class AdminApiController {
         return new SimpleActionResponse(success, success ? "Sanction updated" : "Sanction update failed");
     }
 
+    @GetMapping("/dictionaries/cache")
+    public List<Map<String, Object>> dictionaryCacheStats() {
+        return categoryService.getCacheStats();
+    }
+
+    // Для правок справочников в обход JPA (SQL-скрипты), которые слушатель сущностей не видит
+    @PostMapping("/dictionaries/cache/invalidate")
+    public SimpleActionResponse invalidateDictionaryCache() {
+        categoryService.invalidateDictionaries();
+        return new SimpleActionResponse(true, "Dictionary cache invalidated");
+    }
+
+    @GetMapping("/kafka/delivery")
+    public List<Map<String, Object>> kafkaDeliveryStats() {
+        return kafkaDeliveryStats.snapshot();
+    }
+
+    @GetMapping("/notifications/stream")
+    public Map<String, Object> notificationStreamStats() {
+        return sseConnectionRegistry.stats();
+    }
+
     private Long resolveCurrentUserId(Authentication authentication) {
         if (authentication == null) {
             return null;
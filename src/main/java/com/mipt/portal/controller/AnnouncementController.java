@@ -5,12 +5,14 @@ import com.mipt.portal.entity.Comment;
 import com.mipt.portal.entity.ModerationHistory;
 import com.mipt.portal.entity.User;
 import com.mipt.portal.enums.AdStatus;
+import com.mipt.portal.enums.AnnouncementSortField;
 import com.mipt.portal.service.AnnouncementService;
 import com.mipt.portal.service.MediaService;
 import com.mipt.portal.service.ModerationHistoryService;
 import com.mipt.portal.service.ProfanityChecker;
 import com.mipt.portal.dto.AnnouncementCreateDto;
 import com.mipt.portal.dto.AnnouncementFilterDto;
+import com.mipt.portal.dto.AnnouncementSummaryDto;
 import com.mipt.portal.dto.AnnouncementUpdateDto;
 import com.mipt.portal.dto.CommentCreateDto;
 import jakarta.servlet.http.HttpSession;
@@ -26,7 +28,9 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import com.mipt.portal.enums.Category;
 import com.mipt.portal.enums.Condition;
+import com.mipt.portal.service.ElasticIndexingService;
 import com.mipt.portal.service.ElasticSearchService;
+import com.mipt.portal.service.LocalSearchService;
 
 import java.util.List;
 import java.util.Map;
@@ -37,6 +41,8 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class AnnouncementController {
   private final  ElasticSearchService elasticSearchService;
+  private final LocalSearchService localSearchService;
+  private final ElasticIndexingService elasticIndexingService;
   private final AnnouncementService service;
   private final MediaService mediaService;
   private final ModerationHistoryService moderationHistoryService;
@@ -58,7 +64,7 @@ public class AnnouncementController {
     }
 
     try {
-      mediaService.savePhoto(id, mediaService.multipartFileToBytes(photo));
+      mediaService.savePhoto(id, photo);
       return ResponseEntity.ok().build();
     } catch (Exception e) {
       log.error("Ошибка при сохранении фото для объявления {}: {}", id, e.getMessage(), e);
@@ -66,22 +72,122 @@ public class AnnouncementController {
     }
   }
 
+  @PostMapping(path = "/{id}/photos", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+  public ResponseEntity<?> uploadPhotos(@PathVariable Long id, @RequestParam("photos") List<MultipartFile> photos,
+                                        HttpSession session) {
+    User currentUser = (User) session.getAttribute("user");
+    if (currentUser == null) {
+      return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Не авторизован");
+    }
+
+    Announcement ad = service.findById(id);
+    if (ad == null) {
+      return ResponseEntity.notFound().build();
+    }
+    if (!ad.getAuthorId().equals(currentUser.getId())) {
+      return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Нет прав на изменение этого объявления");
+    }
+    if (photos == null || photos.isEmpty()) {
+      return ResponseEntity.badRequest().body("Файлы фото не переданы");
+    }
+
+    try {
+      int added = mediaService.addPhotos(id, photos);
+      return ResponseEntity.ok(Map.of("added", added, "photoCount", mediaService.getPhotoCount(id)));
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().body(e.getMessage());
+    } catch (Exception e) {
+      log.error("Ошибка при сохранении фото для объявления {}: {}", id, e.getMessage(), e);
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Не удалось сохранить фото");
+    }
+  }
+
+  @DeleteMapping("/{id}/photos/{index}")
+  public ResponseEntity<?> deletePhoto(@PathVariable Long id, @PathVariable int index, HttpSession session) {
+    User currentUser = (User) session.getAttribute("user");
+    if (currentUser == null) {
+      return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Не авторизован");
+    }
+
+    Announcement ad = service.findById(id);
+    if (ad == null) {
+      return ResponseEntity.notFound().build();
+    }
+    if (!ad.getAuthorId().equals(currentUser.getId())) {
+      return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Нет прав на изменение этого объявления");
+    }
+
+    if (!mediaService.deletePhoto(id, index)) {
+      return ResponseEntity.notFound().build();
+    }
+    return ResponseEntity.ok(Map.of("photoCount", mediaService.getPhotoCount(id)));
+  }
+
+  // Справочники отдаются заранее сериализованным JSON из кэша
   @GetMapping("/categories")
-  public ResponseEntity<List<Map<String, Object>>> getCategories() {
-    return ResponseEntity.ok(service.getAllCategories());
+  public ResponseEntity<byte[]> getCategories() {
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(service.getAllCategoriesJson());
   }
 
   @GetMapping("/categories/{categoryId}/subcategories")
-  public ResponseEntity<List<Map<String, Object>>> getSubcategories(@PathVariable Long categoryId) {
-    return ResponseEntity.ok(service.getSubcategoriesByCategory(categoryId));
+  public ResponseEntity<byte[]> getSubcategories(@PathVariable Long categoryId) {
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+        .body(service.getSubcategoriesByCategoryJson(categoryId));
+  }
+
+  @GetMapping("/tags")
+  public ResponseEntity<byte[]> getTags() {
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(service.getTagsWithValuesJson());
   }
 
   @GetMapping("/search")
-  public List<Announcement> search(
+  public ResponseEntity<?> search(
       AnnouncementFilterDto filter,
       @RequestParam(defaultValue = "createdAt") String sortBy,
       @RequestParam(defaultValue = "DESC") String direction) {
-    return service.searchApproved(filter, sortBy, direction);
+    try {
+      return ResponseEntity.ok(service.searchApproved(filter, AnnouncementSortField.fromParam(sortBy), direction));
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().body(e.getMessage());
+    }
+  }
+
+  /**
+   * Постраничный поиск с keyset-курсором GET /api/announcements/search/page
+   * Возвращает облегчённые карточки без фото и описания.
+   */
+  @GetMapping("/search/page")
+  public ResponseEntity<?> searchPage(
+      AnnouncementFilterDto filter,
+      @RequestParam(defaultValue = "createdAt") String sortBy,
+      @RequestParam(defaultValue = "DESC") String direction,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer limit) {
+    try {
+      return ResponseEntity.ok(service.searchApprovedPage(
+          filter, AnnouncementSortField.fromParam(sortBy), direction, cursor, limit));
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().body(e.getMessage());
+    }
+  }
+
+  /**
+   * Полнотекстовый поиск в Elasticsearch GET /api/announcements/search/text
+   * Курсор — search_after последнего элемента; на первой странице дополнительно фасеты по категориям и цене.
+   */
+  @GetMapping("/search/text")
+  public ResponseEntity<?> searchText(
+      AnnouncementFilterDto filter,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer limit) {
+    try {
+      return ResponseEntity.ok(service.searchFullText(filter, cursor, limit));
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().body(e.getMessage());
+    } catch (Exception e) {
+      log.warn("Полнотекстовый поиск недоступен: {}", e.getMessage());
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Поиск временно недоступен");
+    }
   }
 
   @GetMapping("/moderator/pending")
@@ -270,17 +376,35 @@ public class AnnouncementController {
   }
 
   @GetMapping("/elastic-search")
-  public List<Announcement> elasticSearch(@RequestParam String query) {
-    return elasticSearchService.searchWithTypos(query);
+  public List<AnnouncementSummaryDto> elasticSearch(@RequestParam String query) {
+    try {
+      return elasticSearchService.searchWithTypos(query);
+    } catch (Exception e) {
+      log.warn("Elasticsearch недоступен, ищем по локальному индексу: {}", e.getMessage());
+      return localSearchService.search(query, null);
+    }
+  }
+
+  /**
+   * GET /api/announcements/quick-search — поиск с опечатками по индексу в памяти, без Elasticsearch.
+   */
+  @GetMapping("/quick-search")
+  public List<AnnouncementSummaryDto> quickSearch(@RequestParam String query,
+                                        @RequestParam(required = false) Integer limit) {
+    return localSearchService.search(query, limit);
   }
 
   /**
-   * POST /api/announcements/reindex — ручная переиндексация ES из Postgres.
-   * В продакшене это делалось бы через Debezium + Kafka
+   * POST /api/announcements/reindex — полная перестройка ES из Postgres в новый индекс с переключением алиаса.
+   * Текущие изменения доезжают в индекс по событиям Kafka, так что нужна она только после смены маппинга.
    */
   @PostMapping("/reindex")
   public ResponseEntity<String> reindex() {
-    int count = elasticSearchService.reindexAll();
-    return ResponseEntity.ok("Reindexed " + count + " announcements");
+    try {
+      int count = elasticIndexingService.rebuild();
+      return ResponseEntity.ok("Reindexed " + count + " announcements");
+    } catch (IllegalStateException e) {
+      return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
   }
 }
@@ -1,8 +1,9 @@
 package com.mipt.portal.controller;
 
+import com.mipt.portal.dto.FavoritesPageDto;
 import com.mipt.portal.entity.Announcement;
 import com.mipt.portal.service.AnnouncementService;
-import com.mipt.portal.service.UserService;
+import com.mipt.portal.service.FavoriteService;
 import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -16,7 +17,7 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class FavoritesController {
 
-    private final UserService userService;
+    private final FavoriteService favoriteService;
     private final AnnouncementService announcementService;
 
     @GetMapping
@@ -25,7 +26,7 @@ public class FavoritesController {
         if (userId == null) {
             return ResponseEntity.status(401).build();
         }
-        return ResponseEntity.ok(userService.getFavoriteIds(userId));
+        return ResponseEntity.ok(favoriteService.getFavoriteIds(userId));
     }
 
     @GetMapping("/ads")
@@ -34,10 +35,31 @@ public class FavoritesController {
         if (userId == null) {
             return ResponseEntity.status(401).build();
         }
-        List<Long> ids = userService.getFavoriteIds(userId);
+        List<Long> ids = favoriteService.getFavoriteIds(userId);
         return ResponseEntity.ok(announcementService.findAllByIds(ids));
     }
 
+    /**
+     * Лента избранного GET /api/favorites/feed?cursor=&limit=
+     * Новые добавления сверху; карточки без фото и описания, снятые с публикации помечены available=false.
+     */
+    @GetMapping("/feed")
+    public ResponseEntity<?> getFavoritesFeed(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            HttpSession session) {
+        Long userId = (Long) session.getAttribute("userId");
+        if (userId == null) {
+            return ResponseEntity.status(401).build();
+        }
+        try {
+            FavoritesPageDto page = favoriteService.getFeed(userId, cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @PostMapping("/{adId}")
     public ResponseEntity<Map<String, Boolean>> toggleFavorite(
             @PathVariable Long adId, HttpSession session) {
@@ -45,7 +67,38 @@ public class FavoritesController {
         if (userId == null) {
             return ResponseEntity.status(401).build();
         }
-        boolean liked = userService.toggleFavorite(userId, adId);
-        return ResponseEntity.ok(Map.of("liked", liked));
+        try {
+            boolean liked = favoriteService.toggle(userId, adId);
+            return ResponseEntity.ok(Map.of("liked", liked));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // Идемпотентные варианты: повтор запроса не меняет результат
+    @PutMapping("/{adId}")
+    public ResponseEntity<Map<String, Boolean>> addFavorite(
+            @PathVariable Long adId, HttpSession session) {
+        Long userId = (Long) session.getAttribute("userId");
+        if (userId == null) {
+            return ResponseEntity.status(401).build();
+        }
+        try {
+            favoriteService.add(userId, adId);
+            return ResponseEntity.ok(Map.of("liked", true));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @DeleteMapping("/{adId}")
+    public ResponseEntity<Map<String, Boolean>> removeFavorite(
+            @PathVariable Long adId, HttpSession session) {
+        Long userId = (Long) session.getAttribute("userId");
+        if (userId == null) {
+            return ResponseEntity.status(401).build();
+        }
+        favoriteService.remove(userId, adId);
+        return ResponseEntity.ok(Map.of("liked", false));
     }
 }
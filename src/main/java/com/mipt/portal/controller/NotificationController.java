@@ -1,15 +1,24 @@
 package com.mipt.portal.controller;
 
+import com.mipt.portal.dto.NotificationsPageDto;
+import com.mipt.portal.dto.UnreadSummaryDto;
 import com.mipt.portal.entity.ModerationMessage;
+import com.mipt.portal.service.NotificationPushService;
 import com.mipt.portal.service.NotificationService;
+import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Входящие уведомления текущего пользователя (userId из сессии).
+ */
 @Slf4j
 @RestController
 @RequestMapping("/api/notifications")
@@ -17,52 +26,140 @@ import java.util.Map;
 public class NotificationController {
 
   private final NotificationService notificationService;
+  private final NotificationPushService notificationPushService;
+
+  /**
+   * Поток SSE GET /api/notifications/stream: сводка непрочитанных при подключении и после каждого
+   * изменения, плюс сами события уведомлений. Заменяет опрос колокольчиком.
+   */
+  @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public ResponseEntity<SseEmitter> stream(HttpSession session) {
+    Long userId = (Long) session.getAttribute("userId");
+    if (userId == null) {
+      return ResponseEntity.status(401).build();
+    }
+    return ResponseEntity.ok(notificationPushService.subscribe(userId));
+  }
+
+  /**
+   * Входящие GET /api/notifications?cursor=&limit= — новые сверху, со счётчиком непрочитанных.
+   */
+  @GetMapping
+  public ResponseEntity<?> getInbox(
+    @RequestParam(required = false) String cursor,
+    @RequestParam(required = false) Integer limit,
+    HttpSession session) {
+    Long userId = (Long) session.getAttribute("userId");
+    if (userId == null) {
+      return ResponseEntity.status(401).build();
+    }
+    try {
+      NotificationsPageDto page = notificationService.getInbox(userId, cursor, limit);
+      return ResponseEntity.ok(page);
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().body(e.getMessage());
+    }
+  }
+
+  @GetMapping("/unread-count")
+  public ResponseEntity<Map<String, Integer>> getInboxUnreadCount(HttpSession session) {
+    Long userId = (Long) session.getAttribute("userId");
+    if (userId == null) {
+      return ResponseEntity.status(401).build();
+    }
+    return ResponseEntity.ok(Map.of("unreadCount", notificationService.getUnreadCount(userId)));
+  }
+
+  /**
+   * Дешёвый опрос для колокольчика: всего непрочитанных, по объявлениям и id последнего уведомления.
+   */
+  @GetMapping("/unread-summary")
+  public ResponseEntity<UnreadSummaryDto> getUnreadSummary(HttpSession session) {
+    Long userId = (Long) session.getAttribute("userId");
+    if (userId == null) {
+      return ResponseEntity.status(401).build();
+    }
+    return ResponseEntity.ok(notificationService.getUnreadSummary(userId));
+  }
+
+  @PostMapping("/read-all")
+  public ResponseEntity<Map<String, Boolean>> markInboxAsRead(HttpSession session) {
+    Long userId = (Long) session.getAttribute("userId");
+    if (userId == null) {
+      return ResponseEntity.status(401).build();
+    }
+    return ResponseEntity.ok(Map.of("success", notificationService.markAllAsRead(userId)));
+  }
 
   @PostMapping("/user")
   public ResponseEntity<List<ModerationMessage>> getUserNotifications(
-    @RequestBody List<Long> adIds) {
+    @RequestBody List<Long> adIds, HttpSession session) {
     log.info("REST request to get notifications for adIds: {}", adIds);
-    List<ModerationMessage> notifications = notificationService.getUserNotifications(adIds);
+    Long userId = (Long) session.getAttribute("userId");
+    if (userId == null) {
+      return ResponseEntity.status(401).build();
+    }
+    List<ModerationMessage> notifications = notificationService.getUserNotifications(userId, adIds);
     return ResponseEntity.ok(notifications);
   }
 
   @PostMapping("/user/unread-count")
   public ResponseEntity<Map<String, Integer>> getUnreadCount(
-    @RequestBody List<Long> adIds) {
+    @RequestBody List<Long> adIds, HttpSession session) {
     log.info("REST request to get unread count for adIds: {}", adIds);
-    int count = notificationService.getUnreadCount(adIds);
+    Long userId = (Long) session.getAttribute("userId");
+    if (userId == null) {
+      return ResponseEntity.status(401).build();
+    }
+    int count = notificationService.getUnreadCount(userId, adIds);
     return ResponseEntity.ok(Map.of("unreadCount", count));
   }
 
   @PostMapping("/{notificationId}/read")
   public ResponseEntity<Map<String, Boolean>> markAsRead(
-    @PathVariable Long notificationId) {
+    @PathVariable Long notificationId, HttpSession session) {
     log.info("REST request to mark notification {} as read", notificationId);
-    boolean success = notificationService.markAsRead(notificationId);
+    Long userId = (Long) session.getAttribute("userId");
+    if (userId == null) {
+      return ResponseEntity.status(401).build();
+    }
+    boolean success = notificationService.markAsRead(userId, notificationId);
     return ResponseEntity.ok(Map.of("success", success));
   }
 
   @PostMapping("/user/read-all")
   public ResponseEntity<Map<String, Boolean>> markAllAsRead(
-    @RequestBody List<Long> adIds) {
+    @RequestBody List<Long> adIds, HttpSession session) {
     log.info("REST request to mark all notifications as read for adIds: {}", adIds);
-    boolean success = notificationService.markAllAsRead(adIds);
+    Long userId = (Long) session.getAttribute("userId");
+    if (userId == null) {
+      return ResponseEntity.status(401).build();
+    }
+    boolean success = notificationService.markAllAsRead(userId, adIds);
     return ResponseEntity.ok(Map.of("success", success));
   }
 
   @DeleteMapping("/{notificationId}")
   public ResponseEntity<Map<String, Boolean>> deleteNotification(
-    @PathVariable Long notificationId) {
+    @PathVariable Long notificationId, HttpSession session) {
     log.info("REST request to delete notification {}", notificationId);
-    boolean success = notificationService.deleteNotification(notificationId);
+    Long userId = (Long) session.getAttribute("userId");
+    if (userId == null) {
+      return ResponseEntity.status(401).build();
+    }
+    boolean success = notificationService.deleteNotification(userId, notificationId);
     return ResponseEntity.ok(Map.of("success", success));
   }
 
   @DeleteMapping("/user/all")
   public ResponseEntity<Map<String, Boolean>> deleteAllNotifications(
-    @RequestBody List<Long> adIds) {
+    @RequestBody List<Long> adIds, HttpSession session) {
     log.info("REST request to delete all notifications for adIds: {}", adIds);
-    boolean success = notificationService.deleteAllNotifications(adIds);
+    Long userId = (Long) session.getAttribute("userId");
+    if (userId == null) {
+      return ResponseEntity.status(401).build();
+    }
+    boolean success = notificationService.deleteAllNotifications(userId, adIds);
     return ResponseEntity.ok(Map.of("success", success));
   }
-}
\ No newline at end of file
+}
@@ -6,6 +6,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Slf4j
@@ -20,14 +21,14 @@ public class NotificationTestController {
   @GetMapping("/setup")
   public String setupTestData() {
     // Очищаем старые данные
-    notificationService.deleteAllNotifications(List.of(1L, 2L));
+    deleteForAds(List.of(1L, 2L));
 
     // Создаем новые
     notificationService.createNotification(1L, "approve", "Объявление одобрено", "moderator@test.com");
     notificationService.createNotification(1L, "reject", "Недостаточно фото", "moderator@test.com");
 
     ModerationMessage msg3 = notificationService.createNotification(2L, "approve", "Все хорошо", "moderator@test.com");
-    msg3.setIsRead(true); // помечаем как прочитанное
+    notificationService.markAsRead(msg3.getUserId(), msg3.getId()); // помечаем как прочитанное
 
     return "✅ Тестовые уведомления созданы!";
   }
@@ -40,7 +41,7 @@ public class NotificationTestController {
       .map(Long::parseLong)
       .toList();
 
-    List<ModerationMessage> notifications = notificationService.getUserNotifications(ids);
+    List<ModerationMessage> notifications = notificationsForAds(ids);
 
     StringBuilder result = new StringBuilder("📋 Уведомления для объявлений " + ids + ":\n\n");
 
@@ -69,14 +70,18 @@ public class NotificationTestController {
       .map(Long::parseLong)
       .toList();
 
-    int count = notificationService.getUnreadCount(ids);
+    int count = notificationService.groupByRecipient(ids).entrySet().stream()
+      .mapToInt(e -> notificationService.getUnreadCount(e.getKey(), e.getValue()))
+      .sum();
     return "🔔 Непрочитанных уведомлений для объявлений " + ids + ": " + count;
   }
 
   // 4. Пометить как прочитанное
   @GetMapping("/read/{id}")
   public String markAsRead(@PathVariable Long id) {
-    boolean success = notificationService.markAsRead(id);
+    boolean success = notificationService.findRecipient(id)
+      .map(userId -> notificationService.markAsRead(userId, id))
+      .orElse(false);
     return success
       ? "✅ Уведомление " + id + " помечено как прочитанное"
       : "❌ Уведомление " + id + " не найдено";
@@ -85,7 +90,9 @@ public class NotificationTestController {
   // 6. Удалить уведомление
   @GetMapping("/delete/{id}")
   public String deleteNotification(@PathVariable Long id) {
-    boolean success = notificationService.deleteNotification(id);
+    boolean success = notificationService.findRecipient(id)
+      .map(userId -> notificationService.deleteNotification(userId, id))
+      .orElse(false);
     return success
       ? "✅ Уведомление " + id + " удалено"
       : "❌ Уведомление " + id + " не найдено";
@@ -99,7 +106,7 @@ public class NotificationTestController {
       .map(Long::parseLong)
       .toList();
 
-    boolean success = notificationService.deleteAllNotifications(ids);
+    boolean success = deleteForAds(ids);
     return success
       ? "✅ Все уведомления для объявлений " + ids + " удалены"
       : "❌ Ошибка";
@@ -108,7 +115,7 @@ public class NotificationTestController {
   // 8. Показать все уведомления
   @GetMapping("/all")
   public String showAllNotifications() {
-    List<ModerationMessage> all = notificationService.getUserNotifications(List.of(1L, 2L));
+    List<ModerationMessage> all = notificationsForAds(List.of(1L, 2L));
 
     StringBuilder result = new StringBuilder("📋 ВСЕ УВЕДОМЛЕНИЯ:\n\n");
 
@@ -144,7 +151,7 @@ public class NotificationTestController {
       result.append("<br>3. ").append(getUnreadCount("1,2")).append("<br>");
 
       // Получаем ID первого уведомления
-      List<ModerationMessage> notifications = notificationService.getUserNotifications(List.of(1L));
+      List<ModerationMessage> notifications = notificationsForAds(List.of(1L));
       Long firstNotificationId = notifications.isEmpty() ? 1L : notifications.get(0).getId();
 
       // 4. Помечаем одно как прочитанное
@@ -177,4 +184,19 @@ public class NotificationTestController {
 
     return result.toString().replace("\n", "<br>");
   }
-}
\ No newline at end of file
+
+  // Уведомления хранятся во входящих автора объявления: тестовые вызовы без сессии
+  // обращаются к входящим каждого автора по его объявлениям
+  private List<ModerationMessage> notificationsForAds(List<Long> adIds) {
+    List<ModerationMessage> result = new ArrayList<>();
+    notificationService.groupByRecipient(adIds)
+      .forEach((userId, ids) -> result.addAll(notificationService.getUserNotifications(userId, ids)));
+    return result;
+  }
+
+  private boolean deleteForAds(List<Long> adIds) {
+    notificationService.groupByRecipient(adIds)
+      .forEach((userId, ids) -> notificationService.deleteAllNotifications(userId, ids));
+    return true;
+  }
+}
@@ -4,6 +4,7 @@ import com.mipt.portal.entity.Address;
 import com.mipt.portal.dto.*;
 import com.mipt.portal.entity.User;
 import com.mipt.portal.service.UserService;
+import com.mipt.portal.service.UserSummaryService;
 import jakarta.servlet.http.HttpSession;
 import java.util.Optional;
 import lombok.RequiredArgsConstructor;
@@ -17,7 +18,9 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import com.mipt.portal.service.CustomUserDetailsService;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @RestController
@@ -25,8 +28,11 @@ import java.util.List;
 @RequiredArgsConstructor
 public class UserController {
 
+  private static final int MAX_SUMMARY_IDS = 200;
+
   private final UserService userService;
   private final CustomUserDetailsService userDetailsService;
+  private final UserSummaryService userSummaryService;
 
   @PostMapping("/register")
   public ResponseEntity<?> register(@RequestBody RegisterRequest request) {
@@ -145,6 +151,19 @@ public class UserController {
     return userService.getAllUsers();
   }
 
+  /**
+   * Имена и рейтинги авторов для списка объявлений одним запросом
+   * GET /api/users/summaries?ids=1,2,3
+   */
+  @GetMapping("/summaries")
+  public ResponseEntity<?> getSummaries(@RequestParam Collection<Long> ids) {
+    if (ids.size() > MAX_SUMMARY_IDS) {
+      return ResponseEntity.badRequest().body("Не больше " + MAX_SUMMARY_IDS + " пользователей за запрос");
+    }
+    Map<Long, UserSummaryDto> summaries = userSummaryService.getSummaries(ids);
+    return ResponseEntity.ok(summaries);
+  }
+
   /**
    * Получить текущего авторизованного пользователя
    * GET /api/users/me
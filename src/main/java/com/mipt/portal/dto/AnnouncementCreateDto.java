@@ -4,7 +4,6 @@ import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
-import java.util.List;
 
 @Data
 public class AnnouncementCreateDto {
@@ -27,6 +26,4 @@ public class AnnouncementCreateDto {
 
   @NotNull(message = "ID автора обязателен")
   private Long authorId;
-
-  private List<String> photoUrls;
 }
\ No newline at end of file
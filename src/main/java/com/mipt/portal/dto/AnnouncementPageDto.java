@@ -0,0 +1,19 @@
+package com.mipt.portal.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Страница результатов поиска с курсором на следующую страницу.
+ * nextCursor == null, если страниц больше нет.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnnouncementPageDto {
+  private List<AnnouncementSummaryDto> items;
+  private String nextCursor;
+  private boolean hasMore;
+}
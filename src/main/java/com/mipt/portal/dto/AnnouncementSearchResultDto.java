@@ -0,0 +1,23 @@
+package com.mipt.portal.dto;
+
+import java.util.List;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Страница полнотекстового поиска с курсором search_after и фасетами.
+ * Фасеты считаются только для первой страницы, на следующих они null.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnnouncementSearchResultDto {
+  private List<AnnouncementSummaryDto> items;
+  private String nextCursor;
+  private boolean hasMore;
+  private long total;
+  private Map<String, Long> categoryCounts;
+  private Map<Integer, Long> priceHistogram;
+}
@@ -0,0 +1,30 @@
+package com.mipt.portal.dto;
+
+import com.mipt.portal.enums.AdStatus;
+import com.mipt.portal.enums.Category;
+import com.mipt.portal.enums.Condition;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Облегчённое представление объявления для выдачи поиска.
+ * Не содержит photo и description, чтобы не тянуть тяжёлые колонки из ads.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnnouncementSummaryDto {
+  private Long id;
+  private String title;
+  private Category category;
+  private String subcategory;
+  private Condition condition;
+  private int price;
+  private String location;
+  private Long authorId;
+  private AdStatus status;
+  private Integer viewCount;
+  private Instant createdAt;
+}
@@ -0,0 +1,51 @@
+package com.mipt.portal.dto;
+
+import com.mipt.portal.enums.AdStatus;
+import com.mipt.portal.enums.Category;
+import com.mipt.portal.enums.Condition;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Карточка ленты избранного. Для объявлений, которые больше не ACTIVE,
+ * available = false и заполнены только id, title, status и favoritedAt.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FavoriteAdDto {
+  private Long id;
+  private String title;
+  private Category category;
+  private String subcategory;
+  private Condition condition;
+  private Integer price;
+  private String location;
+  private Long authorId;
+  private AdStatus status;
+  private Integer viewCount;
+  private Instant createdAt;
+  private Instant favoritedAt;
+  private boolean available;
+
+  // Конструктор для JPQL-проекции; available вычисляется из статуса
+  public FavoriteAdDto(Long id, String title, Category category, String subcategory, Condition condition,
+                       int price, String location, Long authorId, AdStatus status, Integer viewCount,
+                       Instant createdAt, Instant favoritedAt) {
+    this(id, title, category, subcategory, condition, price, location, authorId, status, viewCount,
+        createdAt, favoritedAt, status == AdStatus.ACTIVE);
+  }
+
+  /**
+   * Убирает всё, кроме того, что нужно, чтобы показать «объявление недоступно».
+   */
+  public FavoriteAdDto withoutPayloadIfUnavailable() {
+    if (available) {
+      return this;
+    }
+    return new FavoriteAdDto(id, title, null, null, null, null, null, null, status, null, null,
+        favoritedAt, false);
+  }
+}
@@ -0,0 +1,19 @@
+package com.mipt.portal.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Страница ленты избранного, новые добавления сверху.
+ * nextCursor == null, если страниц больше нет.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FavoritesPageDto {
+  private List<FavoriteAdDto> items;
+  private String nextCursor;
+  private boolean hasMore;
+}
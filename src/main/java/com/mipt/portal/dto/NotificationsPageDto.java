@@ -0,0 +1,21 @@
+package com.mipt.portal.dto;
+
+import com.mipt.portal.entity.ModerationMessage;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Страница входящих уведомлений, новые сверху, вместе со счётчиком непрочитанных.
+ * nextCursor == null, если страниц больше нет.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationsPageDto {
+  private List<ModerationMessage> items;
+  private String nextCursor;
+  private boolean hasMore;
+  private int unreadCount;
+}
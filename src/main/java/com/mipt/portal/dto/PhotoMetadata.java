@@ -0,0 +1,9 @@
+package com.mipt.portal.dto;
+
+import java.time.Instant;
+
+/**
+ * Метаданные фото объявления: этого достаточно для ETag/304 без чтения самого файла.
+ */
+public record PhotoMetadata(String key, String contentType, Instant updatedAt) {
+}
@@ -0,0 +1,20 @@
+package com.mipt.portal.dto;
+
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Непрочитанные уведомления пользователя: всего и по объявлениям (только ненулевые).
+ * latestNotificationId растёт с каждым новым уведомлением — клиенту достаточно сравнить его
+ * с сохранённым, чтобы решить, перечитывать ли список.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UnreadSummaryDto {
+  private int total;
+  private Map<Long, Integer> byAd;
+  private Long latestNotificationId;
+}
@@ -0,0 +1,22 @@
+package com.mipt.portal.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Краткие данные пользователя для подписей автора/продавца и писем.
+ * Загружается проекцией без EAGER-коллекции ролей User.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSummaryDto {
+  private Long id;
+  private String name;
+  private double rating;
+  // Нужен только для рассылок, наружу не отдаётся
+  @JsonIgnore
+  private String email;
+}
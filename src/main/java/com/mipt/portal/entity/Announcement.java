@@ -7,7 +7,6 @@ import jakarta.persistence.*;
 import lombok.Data;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
-import org.springframework.data.elasticsearch.annotations.Document;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -15,7 +14,6 @@ import java.util.List;
 @Data
 @Entity
 @Table(name = "ads")
-@Document(indexName = "announcements")
 public class Announcement {
 
   @Id
@@ -63,8 +61,16 @@ public class Announcement {
   @Column(name = "notified_at")
   private java.time.Instant notifiedAt;
 
-  @Column(columnDefinition = "bytea")
-  private byte[] photo;
+  // SHA-256 ключ фото в PhotoStore; сами байты в строке ads не хранятся
+  @Column(name = "photo_key", length = 64)
+  private String photoKey;
+
+  // Определяется один раз при загрузке, чтобы не сниффить файл на каждый запрос
+  @Column(name = "photo_content_type", length = 100)
+  private String photoContentType;
+
+  @Column(name = "photo_updated_at")
+  private java.time.Instant photoUpdatedAt;
 
   public void sendToModeration() {
     this.status = AdStatus.UNDER_MODERATION;
@@ -81,7 +87,4 @@ public class Announcement {
   public void reject() {
     this.status = AdStatus.REJECTED;
   }
-
-  public void setPhotoUrls(List<String> photoUrls) {
-  }
 }
\ No newline at end of file
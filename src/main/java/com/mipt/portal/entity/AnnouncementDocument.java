@@ -0,0 +1,91 @@
+package com.mipt.portal.entity;
+
+import com.mipt.portal.dto.AnnouncementSummaryDto;
+import com.mipt.portal.enums.AdStatus;
+import com.mipt.portal.enums.Category;
+import com.mipt.portal.enums.Condition;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.DateFormat;
+import org.springframework.data.elasticsearch.annotations.Document;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+import org.springframework.data.elasticsearch.annotations.Setting;
+
+/**
+ * Документ поискового индекса — только то, по чему ищем, фильтруем и что показываем в выдаче.
+ * Строится из {@link Announcement} при индексации; ключ фото, служебные колонки и прочее в индекс не попадают.
+ */
+@Data
+@Document(indexName = "announcements", createIndex = false)
+@Setting(settingPath = "elasticsearch/announcement-settings.json")
+public class AnnouncementDocument {
+
+  @Id
+  @Field(type = FieldType.Long)
+  private Long id;
+
+  @Field(type = FieldType.Text, analyzer = "ru_en")
+  private String title;
+
+  @Field(type = FieldType.Text, analyzer = "ru_en")
+  private String description;
+
+  @Field(type = FieldType.Keyword)
+  private Category category;
+
+  @Field(type = FieldType.Keyword)
+  private String subcategory;
+
+  @Field(type = FieldType.Keyword)
+  private Condition condition;
+
+  @Field(type = FieldType.Keyword)
+  private AdStatus status;
+
+  @Field(type = FieldType.Integer)
+  private int price;
+
+  @Field(type = FieldType.Keyword, index = false)
+  private String location;
+
+  @Field(type = FieldType.Long, index = false)
+  private Long authorId;
+
+  @Field(type = FieldType.Keyword)
+  private List<String> tags = new ArrayList<>();
+
+  @Field(type = FieldType.Integer, index = false)
+  private Integer viewCount;
+
+  @Field(type = FieldType.Date, format = DateFormat.epoch_millis)
+  private Instant createdAt;
+
+  public static AnnouncementDocument from(Announcement ad) {
+    AnnouncementDocument document = new AnnouncementDocument();
+    document.setId(ad.getId());
+    document.setTitle(ad.getTitle());
+    document.setDescription(ad.getDescription());
+    document.setCategory(ad.getCategory());
+    document.setSubcategory(ad.getSubcategory());
+    document.setCondition(ad.getCondition());
+    document.setStatus(ad.getStatus());
+    document.setPrice(ad.getPrice());
+    document.setLocation(ad.getLocation());
+    document.setAuthorId(ad.getAuthorId());
+    if (ad.getTags() != null) {
+      document.setTags(new ArrayList<>(ad.getTags()));
+    }
+    document.setViewCount(ad.getViewCount());
+    document.setCreatedAt(ad.getCreatedAt());
+    return document;
+  }
+
+  public AnnouncementSummaryDto toSummary() {
+    return new AnnouncementSummaryDto(id, title, category, subcategory, condition, price, location,
+        authorId, status, viewCount, createdAt);
+  }
+}
@@ -0,0 +1,43 @@
+package com.mipt.portal.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.Instant;
+
+/**
+ * Ссылка на одно фото объявления. Порядок задаётся position (0 — обложка).
+ * Байты лежат в PhotoStore, здесь только ключ.
+ */
+@Data
+@Entity
+@Table(name = "ad_photos", indexes = @Index(name = "idx_ad_photos_ad_position", columnList = "ad_id, position"))
+public class AnnouncementPhoto {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "ad_id", nullable = false)
+    private Long adId;
+
+    @Column(name = "position", nullable = false)
+    private int position;
+
+    @Column(name = "photo_key", nullable = false, length = 64)
+    private String photoKey;
+
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private Instant createdAt;
+
+    // Меняется при замене файла или сдвиге позиции — отдаётся как Last-Modified
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+}
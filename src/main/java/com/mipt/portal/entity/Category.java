@@ -1,5 +1,6 @@
 package com.mipt.portal.entity;
 
+import com.mipt.portal.infrastructure.cache.DictionaryChangeListener;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -8,6 +9,7 @@ import lombok.*;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@EntityListeners(DictionaryChangeListener.class)
 @Table(name = "categories")
 public class Category {
 
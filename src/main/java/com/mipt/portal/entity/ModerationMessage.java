@@ -8,6 +8,7 @@ import java.time.LocalDateTime;
 
 public class ModerationMessage {
     private Long id;
+    private Long userId;
     private Long adId;
     private String moderatorEmail;
     private String action; // 'approve', 'reject', 'delete'
@@ -0,0 +1,52 @@
+package com.mipt.portal.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Уведомление во входящих пользователя (получатель — автор объявления).
+ * Хранится в БД, поэтому одинаково видно с любого экземпляра приложения и переживает рестарт.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "notifications")
+public class Notification {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "ad_id")
+    private Long adId;
+
+    @Column(name = "action", nullable = false, length = 32)
+    private String action;
+
+    @Column(name = "reason", length = 2000)
+    private String reason;
+
+    @Column(name = "moderator_email")
+    private String moderatorEmail;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "is_read", nullable = false)
+    private boolean read;
+
+    public Notification(Long userId, Long adId, String action, String reason, String moderatorEmail) {
+        this.userId = userId;
+        this.adId = adId;
+        this.action = action;
+        this.reason = reason;
+        this.moderatorEmail = moderatorEmail;
+        this.createdAt = Instant.now();
+    }
+}
@@ -0,0 +1,36 @@
+package com.mipt.portal.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Число непрочитанных уведомлений пользователя по одному объявлению.
+ * Ведётся вместе с notification_counters теми же запросами, что меняют notifications.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "notification_ad_counters")
+public class NotificationAdCounter {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(name = "unread_count", nullable = false)
+    private int unreadCount;
+
+    @Data
+    @NoArgsConstructor
+    @Embeddable
+    public static class Key implements Serializable {
+
+        @Column(name = "user_id", nullable = false)
+        private Long userId;
+
+        @Column(name = "ad_id", nullable = false)
+        private Long adId;
+    }
+}
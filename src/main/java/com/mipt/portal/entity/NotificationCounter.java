@@ -0,0 +1,27 @@
+package com.mipt.portal.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Число непрочитанных уведомлений пользователя. Меняется в той же транзакции, что и notifications,
+ * атомарным UPDATE, поэтому колокольчик читает одну строку вместо подсчёта по всей истории.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "notification_counters")
+public class NotificationCounter {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "unread_count", nullable = false)
+    private int unreadCount;
+
+    // id последнего созданного уведомления: по нему клиент понимает, что список пора перечитать
+    @Column(name = "latest_notification_id")
+    private Long latestNotificationId;
+}
@@ -3,9 +3,9 @@ package com.mipt.portal.entity;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.mipt.portal.entity.Address;
 import com.mipt.portal.enums.Role;
+import com.mipt.portal.infrastructure.cache.UserSummaryChangeListener;
 import java.time.Instant;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
 
 import lombok.EqualsAndHashCode;
@@ -20,6 +20,7 @@ import lombok.Setter;
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
 @NoArgsConstructor
 @Entity
+@EntityListeners(UserSummaryChangeListener.class)
 @Table(name = "users")
 public class User {
 
@@ -72,11 +73,6 @@ public class User {
   @Column(name = "ban_reason")
   private String banReason;
 
-  @ElementCollection(fetch = FetchType.EAGER)
-  @CollectionTable(name = "user_ad_list", joinColumns = @JoinColumn(name = "user_id"))
-  @Column(name = "ad_id")
-  private List<Long> adList;
-
   @ElementCollection(fetch = FetchType.EAGER)
   @CollectionTable(name = "user_roles", joinColumns = @JoinColumn(name = "user_id"))
   @Enumerated(EnumType.STRING)
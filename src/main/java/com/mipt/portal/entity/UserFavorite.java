@@ -0,0 +1,37 @@
+package com.mipt.portal.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Объявление в избранном пользователя — одна строка на пару (пользователь, объявление).
+ * Пишется и удаляется точечными запросами, без загрузки всего списка.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "user_favorites")
+public class UserFavorite {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Data
+    @NoArgsConstructor
+    @Embeddable
+    public static class Key implements Serializable {
+
+        @Column(name = "user_id", nullable = false)
+        private Long userId;
+
+        @Column(name = "ad_id", nullable = false)
+        private Long adId;
+    }
+}
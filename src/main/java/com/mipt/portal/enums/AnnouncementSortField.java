@@ -0,0 +1,51 @@
+package com.mipt.portal.enums;
+
+/**
+ * Поля, по которым разрешено сортировать выдачу объявлений.
+ * Произвольное значение sortBy из запроса в JPQL больше не попадает.
+ */
+public enum AnnouncementSortField {
+  CREATED_AT("createdAt", true),
+  PRICE("price", true),
+  VIEW_COUNT("viewCount", false),
+  TITLE("title", false),
+  /** Порядок поискового движка; имеет смысл только при текстовом запросе. */
+  RELEVANCE("relevance", false);
+
+  private final String property;
+  private final boolean keyset;
+
+  AnnouncementSortField(String property, boolean keyset) {
+    this.property = property;
+    this.keyset = keyset;
+  }
+
+  /**
+   * Имя свойства сущности Announcement.
+   */
+  public String getProperty() {
+    return property;
+  }
+
+  /**
+   * Годится ли поле для keyset-пагинации (значение однозначно восстанавливается из курсора).
+   */
+  public boolean isKeyset() {
+    return keyset;
+  }
+
+  /**
+   * Принимает имя свойства ("createdAt") или константы ("CREATED_AT"); пустое значение — CREATED_AT.
+   */
+  public static AnnouncementSortField fromParam(String value) {
+    if (value == null || value.isBlank()) {
+      return CREATED_AT;
+    }
+    for (AnnouncementSortField field : values()) {
+      if (field.property.equalsIgnoreCase(value) || field.name().equalsIgnoreCase(value)) {
+        return field;
+      }
+    }
+    throw new IllegalArgumentException("Недопустимое поле сортировки: " + value);
+  }
+}
@@ -0,0 +1,39 @@
+package com.mipt.portal.enums;
+
+public enum PhotoSize {
+  SMALL(160),
+  MEDIUM(480),
+  LARGE(1280);
+
+  private final int maxSide;
+
+  PhotoSize(int maxSide) {
+    this.maxSide = maxSide;
+  }
+
+  public int getMaxSide() {
+    return maxSide;
+  }
+
+  /**
+   * Имя варианта в хранилище, например "480".
+   */
+  public String getVariantName() {
+    return String.valueOf(maxSide);
+  }
+
+  /**
+   * Принимает имя ("small") или размер в пикселях ("160"); null — отдать оригинал.
+   */
+  public static PhotoSize fromParam(String value) {
+    if (value == null || value.isBlank()) {
+      return null;
+    }
+    for (PhotoSize size : values()) {
+      if (size.name().equalsIgnoreCase(value) || size.getVariantName().equals(value)) {
+        return size;
+      }
+    }
+    throw new IllegalArgumentException("Неизвестный размер фото: " + value);
+  }
+}
@@ -0,0 +1,16 @@
+package com.mipt.portal.enums;
+
+/**
+ * Чем искать текст в SQL-поиске объявлений.
+ */
+public enum TextSearchBackend {
+  /**
+   * Сортировка по релевантности — Elasticsearch, а при его недоступности — полнотекстовый индекс Postgres;
+   * остальные сортировки и keyset-страницы — полнотекстовый индекс Postgres прямо в SQL-запросе.
+   */
+  ELASTICSEARCH,
+  /** tsvector + pg_trgm в Postgres. */
+  POSTGRES,
+  /** LOWER(...) LIKE '%text%' — полный просмотр ads. */
+  LIKE
+}
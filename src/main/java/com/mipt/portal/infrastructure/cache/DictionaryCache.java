@@ -0,0 +1,101 @@
+package com.mipt.portal.infrastructure.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Read-through кэш справочников с ограничением по размеру (LRU) и времени жизни записи.
+ * Вместе со значением хранится его JSON, сериализованный один раз при загрузке,
+ * чтобы REST-ответ отдавался готовыми байтами.
+ */
+public class DictionaryCache<K, V> {
+
+  private final String name;
+  private final int maxSize;
+  private final long ttlNanos;
+  private final ObjectMapper objectMapper;
+
+  // access-order: при переполнении выбрасывается давно не читанная запись
+  private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder invalidations = new LongAdder();
+
+  public DictionaryCache(String name, int maxSize, Duration ttl, ObjectMapper objectMapper) {
+    this.name = name;
+    this.maxSize = maxSize;
+    this.ttlNanos = ttl.toNanos();
+    this.objectMapper = objectMapper;
+  }
+
+  public V get(K key, Supplier<V> loader) {
+    return entry(key, loader).value();
+  }
+
+  public byte[] getJson(K key, Supplier<V> loader) {
+    return entry(key, loader).json();
+  }
+
+  public synchronized void invalidateAll() {
+    entries.clear();
+    invalidations.increment();
+  }
+
+  public synchronized Map<String, Object> stats() {
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("name", name);
+    stats.put("size", entries.size());
+    stats.put("hits", hits.sum());
+    stats.put("misses", misses.sum());
+    stats.put("evictions", evictions.sum());
+    stats.put("invalidations", invalidations.sum());
+    return stats;
+  }
+
+  private Entry<V> entry(K key, Supplier<V> loader) {
+    long now = System.nanoTime();
+    long generation;
+    synchronized (this) {
+      Entry<V> cached = entries.get(key);
+      if (cached != null && now - cached.loadedAt() < ttlNanos) {
+        hits.increment();
+        return cached;
+      }
+      misses.increment();
+      generation = invalidations.sum();
+    }
+    // Загрузка идёт вне блокировки: медленный запрос в БД не задерживает чтение других ключей
+    V value = loader.get();
+    Entry<V> loaded = new Entry<>(value, serialize(value), now);
+    synchronized (this) {
+      // Если за время загрузки справочник сбросили, прочитанное значение могло устареть — не кэшируем его
+      if (generation == invalidations.sum()) {
+        entries.put(key, loaded);
+        if (entries.size() > maxSize) {
+          K eldest = entries.keySet().iterator().next();
+          entries.remove(eldest);
+          evictions.increment();
+        }
+      }
+    }
+    return loaded;
+  }
+
+  private byte[] serialize(V value) {
+    try {
+      return objectMapper.writeValueAsBytes(value);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Не удалось сериализовать справочник " + name, e);
+    }
+  }
+
+  private record Entry<V>(V value, byte[] json, long loadedAt) {
+  }
+}
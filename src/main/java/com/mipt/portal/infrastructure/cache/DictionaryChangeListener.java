@@ -0,0 +1,29 @@
+package com.mipt.portal.infrastructure.cache;
+
+import com.mipt.portal.service.CategoryService;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA-слушатель категорий и тегов: любое изменение сбрасывает кэш справочников.
+ * CategoryService берётся лениво — слушатель создаётся вместе с EntityManagerFactory, раньше репозиториев.
+ */
+@Component
+public class DictionaryChangeListener {
+
+  private final ObjectProvider<CategoryService> categoryService;
+
+  public DictionaryChangeListener(ObjectProvider<CategoryService> categoryService) {
+    this.categoryService = categoryService;
+  }
+
+  @PostPersist
+  @PostUpdate
+  @PostRemove
+  public void onChange(Object entity) {
+    categoryService.ifAvailable(CategoryService::invalidateDictionaries);
+  }
+}
@@ -0,0 +1,27 @@
+package com.mipt.portal.infrastructure.cache;
+
+import com.mipt.portal.entity.User;
+import com.mipt.portal.service.UserSummaryService;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Сбрасывает закэшированную сводку пользователя при его изменении или удалении.
+ */
+@Component
+public class UserSummaryChangeListener {
+
+  private final ObjectProvider<UserSummaryService> userSummaryService;
+
+  public UserSummaryChangeListener(ObjectProvider<UserSummaryService> userSummaryService) {
+    this.userSummaryService = userSummaryService;
+  }
+
+  @PostUpdate
+  @PostRemove
+  public void onChange(User user) {
+    userSummaryService.ifAvailable(service -> service.evict(user.getId()));
+  }
+}
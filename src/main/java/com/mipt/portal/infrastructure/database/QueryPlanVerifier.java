@@ -0,0 +1,252 @@
+package com.mipt.portal.infrastructure.database;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mipt.portal.dto.AnnouncementFilterDto;
+import com.mipt.portal.enums.AdStatus;
+import com.mipt.portal.enums.AnnouncementSortField;
+import com.mipt.portal.enums.Category;
+import com.mipt.portal.enums.Condition;
+import com.mipt.portal.repository.AnnouncementRepository;
+import com.mipt.portal.repository.SearchCursor;
+import com.mipt.portal.repository.TextMatch;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Проверка планов запросов поиска объявлений (app.db.plan-check.enabled=true).
+ * Для каждой комбинации фильтров перехватывает SQL, который строит Hibernate, и делает
+ * EXPLAIN его generic-плана — того, что Postgres кеширует для подготовленных запросов.
+ * Seq Scan с оценкой больше порога строк считается регрессией.
+ * При seed-rows > 0 ads временно дополняется синтетическими строками и пересчитывается статистика;
+ * всё выполняется в одной транзакции и откатывается. Без seed на почти пустой таблице оценки строк
+ * заведомо ниже порога, поэтому такая проверка пропускается с предупреждением.
+ * Форма, которую не удалось разобрать или объяснить, считается нарушением.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.db.plan-check.enabled", havingValue = "true")
+public class QueryPlanVerifier {
+
+  private static final String[] SEED_STATUSES = {"ACTIVE", "ACTIVE", "ACTIVE", "ARCHIVED", "UNDER_MODERATION", "DELETED"};
+
+  private final AnnouncementRepository announcementRepository;
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final ObjectMapper objectMapper;
+  private final long seqScanRowThreshold;
+  private final int seedRows;
+  private final boolean failOnViolation;
+
+  public QueryPlanVerifier(
+      AnnouncementRepository announcementRepository,
+      JdbcTemplate jdbcTemplate,
+      PlatformTransactionManager transactionManager,
+      ObjectMapper objectMapper,
+      @Value("${app.db.plan-check.seq-scan-row-threshold:1000}") long seqScanRowThreshold,
+      @Value("${app.db.plan-check.seed-rows:20000}") int seedRows,
+      @Value("${app.db.plan-check.fail-on-violation:true}") boolean failOnViolation) {
+    this.announcementRepository = announcementRepository;
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.objectMapper = objectMapper;
+    this.seqScanRowThreshold = seqScanRowThreshold;
+    this.seedRows = seedRows;
+    this.failOnViolation = failOnViolation;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void verify() {
+    if (seedRows <= 0) {
+      Long rows = jdbcTemplate.queryForObject("SELECT count(*) FROM ads WHERE status = 'ACTIVE'", Long.class);
+      if (rows == null || rows <= seqScanRowThreshold) {
+        log.warn("Query plan check skipped: seed-rows=0 and only {} active ads, estimates cannot exceed the {} row threshold",
+            rows, seqScanRowThreshold);
+        return;
+      }
+    }
+
+    Map<String, Runnable> shapes = shapes();
+    List<String> violations = transactionTemplate.execute(status -> {
+      status.setRollbackOnly();
+      if (seedRows > 0) {
+        seed();
+      }
+      jdbcTemplate.execute("SET LOCAL plan_cache_mode = force_generic_plan");
+
+      List<String> found = new ArrayList<>();
+      shapes.forEach((name, action) -> found.addAll(check(name, action)));
+      return found;
+    });
+
+    if (violations == null || violations.isEmpty()) {
+      log.info("Query plan check passed: {} query shapes, seq scan threshold {} rows", shapes.size(), seqScanRowThreshold);
+      return;
+    }
+    violations.forEach(violation -> log.warn("Query plan check: {}", violation));
+    if (failOnViolation) {
+      throw new IllegalStateException("Query plan check failed: " + violations.size() + " violation(s)");
+    }
+  }
+
+  // Каждая форма — под своей точкой сохранения: ошибка PREPARE или EXPLAIN прерывает транзакцию Postgres,
+  // и без отката к ней все следующие формы тоже не смогли бы выполниться
+  private List<String> check(String shape, Runnable action) {
+    jdbcTemplate.execute("SAVEPOINT plan_check_shape");
+    try {
+      Optional<String> sql = SqlCaptureInspector.capture(action);
+      List<String> violations = sql.isPresent()
+          ? explain(shape, sql.get())
+          : List.of(shape + ": no SQL captured");
+      jdbcTemplate.execute("RELEASE SAVEPOINT plan_check_shape");
+      return violations;
+    } catch (Exception e) {
+      jdbcTemplate.execute("ROLLBACK TO SAVEPOINT plan_check_shape");
+      return List.of(String.format("%s: could not explain: %s", shape, e.getMessage()));
+    }
+  }
+
+  // Все сочетания фильтров поиска × сортировки keyset-выдачи, плюс фоновые выборки по статусу
+  private Map<String, Runnable> shapes() {
+    Map<String, Runnable> shapes = new LinkedHashMap<>();
+    String[] filterNames = {"category", "subcategory", "condition", "price", "createdAfter"};
+    Instant now = Instant.now();
+
+    for (int mask = 0; mask < 1 << filterNames.length; mask++) {
+      AnnouncementFilterDto filter = new AnnouncementFilterDto();
+      List<String> used = new ArrayList<>();
+      if ((mask & 1) != 0) {
+        filter.setCategory(Category.values()[0]);
+      }
+      if ((mask & 2) != 0) {
+        filter.setSubcategory("plan-check");
+      }
+      if ((mask & 4) != 0) {
+        filter.setCondition(Condition.values()[0]);
+      }
+      if ((mask & 8) != 0) {
+        filter.setMinPrice(100);
+        filter.setMaxPrice(10_000);
+      }
+      if ((mask & 16) != 0) {
+        filter.setCreatedAfter(now.minus(30, ChronoUnit.DAYS));
+      }
+      for (int i = 0; i < filterNames.length; i++) {
+        if ((mask & (1 << i)) != 0) {
+          used.add(filterNames[i]);
+        }
+      }
+      String filters = used.isEmpty() ? "no filters" : String.join("+", used);
+
+      String createdCursor = new SearchCursor("createdAt", now, Long.MAX_VALUE).encode();
+      String priceCursor = new SearchCursor("price", 0, 0).encode();
+      shapes.put("page by createdAt [" + filters + "]",
+          () -> announcementRepository.searchApprovedPage(filter, AnnouncementSortField.CREATED_AT, "DESC", null, 20));
+      shapes.put("page by createdAt after cursor [" + filters + "]",
+          () -> announcementRepository.searchApprovedPage(filter, AnnouncementSortField.CREATED_AT, "DESC", createdCursor, 20));
+      shapes.put("page by price after cursor [" + filters + "]",
+          () -> announcementRepository.searchApprovedPage(filter, AnnouncementSortField.PRICE, "ASC", priceCursor, 20));
+    }
+
+    // Текстовый поиск: ad_text_match внутри keyset-выдачи и выборка id по релевантности
+    AnnouncementFilterDto textFilter = new AnnouncementFilterDto();
+    textFilter.setText("plan-check");
+    String createdCursor = new SearchCursor("createdAt", now, Long.MAX_VALUE).encode();
+    String priceCursor = new SearchCursor("price", 0, 0).encode();
+    shapes.put("page by createdAt [full text]", () -> announcementRepository.searchApprovedPage(
+        textFilter, AnnouncementSortField.CREATED_AT, "DESC", null, 20, TextMatch.FULL_TEXT));
+    shapes.put("page by createdAt after cursor [full text]", () -> announcementRepository.searchApprovedPage(
+        textFilter, AnnouncementSortField.CREATED_AT, "DESC", createdCursor, 20, TextMatch.FULL_TEXT));
+    shapes.put("page by price after cursor [full text]", () -> announcementRepository.searchApprovedPage(
+        textFilter, AnnouncementSortField.PRICE, "ASC", priceCursor, 20, TextMatch.FULL_TEXT));
+    shapes.put("findTextMatchIds", () -> announcementRepository.findTextMatchIds("plan-check", 1000));
+
+    shapes.put("findByStatusAndUpdatedAtBefore",
+        () -> announcementRepository.findByStatusAndUpdatedAtBefore(AdStatus.ACTIVE, now.minus(30, ChronoUnit.DAYS)));
+    shapes.put("findByStatusAndNotifiedAtBefore",
+        () -> announcementRepository.findByStatusAndNotifiedAtBefore(AdStatus.ACTIVE, now.minus(30, ChronoUnit.DAYS)));
+    shapes.put("countByCategoryAndStatus",
+        () -> announcementRepository.countByCategoryAndStatus(Category.values()[0], AdStatus.ACTIVE));
+    return shapes;
+  }
+
+  private List<String> explain(String shape, String sql) throws IOException {
+    int[] parameterCount = {0};
+    StringBuilder positional = new StringBuilder(sql.length() + 16);
+    for (char c : sql.toCharArray()) {
+      if (c == '?') {
+        positional.append('$').append(++parameterCount[0]);
+      } else {
+        positional.append(c);
+      }
+    }
+
+    // Generic-план не зависит от значений, поэтому параметры можно передать как NULL
+    String arguments = parameterCount[0] == 0
+        ? ""
+        : "(" + String.join(", ", Collections.nCopies(parameterCount[0], "NULL")) + ")";
+    jdbcTemplate.execute("PREPARE plan_check AS " + positional);
+    String json;
+    try {
+      json = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) EXECUTE plan_check" + arguments, String.class);
+    } catch (RuntimeException e) {
+      // PREPARE не транзакционен: после отката к savepoint оператор ещё нужно освободить
+      jdbcTemplate.execute("ROLLBACK TO SAVEPOINT plan_check_shape");
+      throw e;
+    } finally {
+      jdbcTemplate.execute("DEALLOCATE plan_check");
+    }
+    List<String> violations = new ArrayList<>();
+    collectSeqScans(shape, objectMapper.readTree(json).path(0).path("Plan"), violations);
+    return violations;
+  }
+
+  private void collectSeqScans(String shape, JsonNode plan, List<String> violations) {
+    if ("Seq Scan".equals(plan.path("Node Type").asText()) && plan.path("Plan Rows").asLong() > seqScanRowThreshold) {
+      violations.add(String.format("%s: Seq Scan on %s, ~%d rows",
+          shape, plan.path("Relation Name").asText(), plan.path("Plan Rows").asLong()));
+    }
+    for (JsonNode child : plan.path("Plans")) {
+      collectSeqScans(shape, child, violations);
+    }
+  }
+
+  private void seed() {
+    String categories = Arrays.stream(Category.values()).map(Enum::name).collect(Collectors.joining(","));
+    String conditions = Arrays.stream(Condition.values()).map(Enum::name).collect(Collectors.joining(","));
+    String statuses = String.join(",", SEED_STATUSES);
+
+    jdbcTemplate.update(
+        "INSERT INTO ads (title, description, category, subcategory, condition, price, location, status, "
+            + "view_count, tags_count, created_at, updated_at) "
+            + "SELECT 'plan-check ' || g, 'plan-check', "
+            + "(string_to_array(?, ','))[1 + g % ?], 'sub-' || (g % 50), (string_to_array(?, ','))[1 + g % ?], "
+            + "(g * 37) % 100000, 'plan-check', (string_to_array(?, ','))[1 + g % ?], 0, 0, "
+            + "now() - (g % 365) * interval '1 day', now() - (g % 365) * interval '1 day' "
+            + "FROM generate_series(1, ?) g",
+        categories, Category.values().length,
+        conditions, Condition.values().length,
+        statuses, SEED_STATUSES.length,
+        seedRows);
+    jdbcTemplate.execute("ANALYZE ads");
+    log.info("Query plan check: seeded {} synthetic ads (rolled back afterwards)", seedRows);
+  }
+}
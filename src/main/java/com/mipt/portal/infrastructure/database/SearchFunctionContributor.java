@@ -0,0 +1,22 @@
+package com.mipt.portal.infrastructure.database;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Регистрирует в HQL функцию ad_text_match(id, text): объявление подходит под текстовый запрос
+ * по полнотекстовому индексу. Тело — SQL-функция ad_text_match_ids из data.sql, которую
+ * планировщик Postgres встраивает в запрос, так что используются GIN-индексы search_vector и заголовка.
+ * Подключается через META-INF/services.
+ */
+public class SearchFunctionContributor implements FunctionContributor {
+
+  @Override
+  public void contributeFunctions(FunctionContributions functionContributions) {
+    functionContributions.getFunctionRegistry().registerPattern(
+        "ad_text_match",
+        "(?1 in (select m.id from ad_text_match_ids(?2) m(id)))",
+        functionContributions.getTypeConfiguration().getBasicTypeRegistry().resolve(StandardBasicTypes.BOOLEAN));
+  }
+}
@@ -0,0 +1,50 @@
+package com.mipt.portal.infrastructure.database;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Перехватывает SQL, который Hibernate сгенерировал в текущем потоке, пока включён захват.
+ * Запрос при этом не выполняется: после записи SQL инспектор прерывает его.
+ * Вне {@link #capture} ничего не делает и возвращает запрос без изменений.
+ */
+public class SqlCaptureInspector implements StatementInspector {
+
+  private static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+
+  @Override
+  public String inspect(String sql) {
+    List<String> captured = CAPTURED.get();
+    if (captured != null) {
+      captured.add(sql);
+      throw new CapturedException();
+    }
+    return sql;
+  }
+
+  /**
+   * Вызывает action и возвращает SQL первого запроса, который он попытался выполнить.
+   */
+  public static Optional<String> capture(Runnable action) {
+    List<String> captured = new ArrayList<>();
+    CAPTURED.set(captured);
+    try {
+      action.run();
+    } catch (RuntimeException e) {
+      if (captured.isEmpty()) {
+        throw e;
+      }
+    } finally {
+      CAPTURED.remove();
+    }
+    return captured.stream().findFirst();
+  }
+
+  private static final class CapturedException extends RuntimeException {
+    private CapturedException() {
+      super("SQL captured", null, false, false);
+    }
+  }
+}
@@ -0,0 +1,448 @@
+package com.mipt.portal.infrastructure.kafka;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.RecordComponent;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Кодек конверта событий Kafka.
+ * <p>
+ * Бинарный формат (BINARY): байт 0xB1, varint номера схемы из {@link EventSchemas},
+ * varint epoch-millis, строка типа события, varint-маска null-полей и значения ненулевых полей
+ * record по порядку компонентов (Long/Integer — zigzag varint, Double — 8 байт, Boolean — байт,
+ * String — varint длины + UTF-8, List&lt;Long&gt; — varint размера + элементы).
+ * Кодирование идёт в переиспользуемый буфер потока, наружу копируется только результат.
+ * <p>
+ * JSON ({"type","timestamp","payload"}) остаётся для отладки (app.kafka.event-format: JSON) и для
+ * payload без зарегистрированной схемы. Декодер различает форматы по первому байту.
+ */
+@Slf4j
+@Component
+public class EventCodec {
+
+  public enum Format { BINARY, JSON }
+
+  private static final byte MAGIC = (byte) 0xB1;
+  private static final int INITIAL_BUFFER = 256;
+  private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+
+  private final ObjectMapper objectMapper;
+  private final Format format;
+  private final Map<Class<?>, Integer> schemaIds = EventSchemas.idsByClass();
+  private final Map<Class<?>, Schema> schemas = new LinkedHashMap<>();
+  private final ThreadLocal<Writer> buffers = ThreadLocal.withInitial(() -> new Writer(INITIAL_BUFFER));
+
+  public EventCodec(ObjectMapper objectMapper, @Value("${app.kafka.event-format:BINARY}") Format format) {
+    this.objectMapper = objectMapper;
+    this.format = format;
+    // Схемы разбираются один раз при старте: неподдерживаемый тип поля — ошибка конфигурации
+    for (Class<? extends Record> type : EventSchemas.BY_ID) {
+      schemas.put(type, new Schema(type));
+    }
+  }
+
+  /**
+   * Событие, прочитанное из сообщения. payload — record для бинарного формата, JsonNode для JSON.
+   */
+  public record DecodedEvent(String type, long timestampMillis, Object payload) {
+  }
+
+  public byte[] encode(String eventType, long timestampMillis, Object payload) {
+    Schema schema = payload == null ? null : schemas.get(payload.getClass());
+    if (format == Format.JSON || schema == null) {
+      return encodeJson(eventType, timestampMillis, payload);
+    }
+    Writer writer = buffers.get();
+    writer.reset();
+    writer.writeByte(MAGIC);
+    writer.writeVarLong(schemaIds.get(payload.getClass()));
+    writer.writeVarLong(timestampMillis);
+    writer.writeString(eventType);
+    schema.write(payload, writer);
+    byte[] result = writer.toByteArray();
+    if (writer.capacity() > MAX_RETAINED_BUFFER) {
+      buffers.remove();
+    }
+    return result;
+  }
+
+  public DecodedEvent decode(byte[] message) {
+    if (message == null || message.length == 0) {
+      throw new IllegalArgumentException("Пустое сообщение");
+    }
+    if (message[0] != MAGIC) {
+      return decodeJson(message);
+    }
+    Reader reader = new Reader(message, 1);
+    int schemaId = (int) reader.readVarLong();
+    if (schemaId < 1 || schemaId > EventSchemas.BY_ID.size()) {
+      throw new IllegalArgumentException("Неизвестная схема события: " + schemaId);
+    }
+    long timestamp = reader.readVarLong();
+    String type = reader.readString();
+    Object payload = schemas.get(EventSchemas.BY_ID.get(schemaId - 1)).read(reader);
+    return new DecodedEvent(type, timestamp, payload);
+  }
+
+  /**
+   * Числовое поле payload по имени, независимо от формата; null, если поля нет.
+   */
+  public Long readLong(DecodedEvent event, String field) {
+    Object payload = event.payload();
+    if (payload instanceof JsonNode node) {
+      JsonNode value = node.path(field);
+      return value.canConvertToLong() ? value.asLong() : null;
+    }
+    Schema schema = payload == null ? null : schemas.get(payload.getClass());
+    Object value = schema == null ? null : schema.get(payload, field);
+    return value instanceof Number number ? number.longValue() : null;
+  }
+
+  /**
+   * Человекочитаемый JSON любого сообщения — для логов и отладки.
+   */
+  public String toJson(byte[] message) {
+    try {
+      if (message.length > 0 && message[0] != MAGIC) {
+        return new String(message, StandardCharsets.UTF_8);
+      }
+      DecodedEvent event = decode(message);
+      Map<String, Object> json = new LinkedHashMap<>();
+      json.put("type", event.type());
+      json.put("timestamp", Instant.ofEpochMilli(event.timestampMillis()).toString());
+      json.put("payload", event.payload());
+      return objectMapper.writeValueAsString(json);
+    } catch (Exception e) {
+      return "<undecodable event: " + e.getMessage() + ">";
+    }
+  }
+
+  private byte[] encodeJson(String eventType, long timestampMillis, Object payload) {
+    try {
+      return objectMapper.writeValueAsBytes(
+          new JsonEnvelope(eventType, Instant.ofEpochMilli(timestampMillis).toString(), payload));
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Не удалось сериализовать событие " + eventType, e);
+    }
+  }
+
+  private DecodedEvent decodeJson(byte[] message) {
+    try {
+      JsonNode root = objectMapper.readTree(message);
+      JsonNode timestamp = root.path("timestamp");
+      long millis = timestamp.isNumber() ? timestamp.asLong()
+          : timestamp.isTextual() ? Instant.parse(timestamp.asText()).toEpochMilli() : 0L;
+      return new DecodedEvent(root.path("type").asText(null), millis, root.path("payload"));
+    } catch (IOException | RuntimeException e) {
+      throw new IllegalArgumentException("Некорректное JSON-событие", e);
+    }
+  }
+
+  record JsonEnvelope(String type, String timestamp, Object payload) {
+  }
+
+  private enum FieldType { LONG, INTEGER, DOUBLE, BOOLEAN, STRING, LONG_LIST }
+
+  /**
+   * Разобранный record: типы и аксессоры полей, канонический конструктор.
+   */
+  private static final class Schema {
+    private final String[] names;
+    private final FieldType[] types;
+    private final Method[] accessors;
+    private final Constructor<?> constructor;
+
+    Schema(Class<? extends Record> type) {
+      RecordComponent[] components = type.getRecordComponents();
+      if (components.length > 63) {
+        throw new IllegalStateException("Слишком много полей в " + type.getName());
+      }
+      names = new String[components.length];
+      types = new FieldType[components.length];
+      accessors = new Method[components.length];
+      Class<?>[] parameterTypes = new Class<?>[components.length];
+      for (int i = 0; i < components.length; i++) {
+        names[i] = components[i].getName();
+        types[i] = fieldType(type, components[i]);
+        accessors[i] = components[i].getAccessor();
+        accessors[i].setAccessible(true);
+        parameterTypes[i] = components[i].getType();
+      }
+      try {
+        constructor = type.getDeclaredConstructor(parameterTypes);
+        constructor.setAccessible(true);
+      } catch (NoSuchMethodException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    private static FieldType fieldType(Class<?> owner, RecordComponent component) {
+      Class<?> raw = component.getType();
+      if (raw == Long.class) {
+        return FieldType.LONG;
+      } else if (raw == Integer.class) {
+        return FieldType.INTEGER;
+      } else if (raw == Double.class) {
+        return FieldType.DOUBLE;
+      } else if (raw == Boolean.class) {
+        return FieldType.BOOLEAN;
+      } else if (raw == String.class) {
+        return FieldType.STRING;
+      } else if (raw == List.class && component.getGenericType() instanceof ParameterizedType generic) {
+        Type element = generic.getActualTypeArguments()[0];
+        if (element == Long.class) {
+          return FieldType.LONG_LIST;
+        }
+      }
+      throw new IllegalStateException("Неподдерживаемый тип поля " + owner.getSimpleName() + "."
+          + component.getName() + ": " + component.getGenericType());
+    }
+
+    Object get(Object record, String field) {
+      for (int i = 0; i < names.length; i++) {
+        if (names[i].equals(field)) {
+          return value(record, i);
+        }
+      }
+      return null;
+    }
+
+    void write(Object record, Writer writer) {
+      Object[] values = new Object[accessors.length];
+      long nullMask = 0;
+      for (int i = 0; i < accessors.length; i++) {
+        values[i] = value(record, i);
+        if (values[i] == null) {
+          nullMask |= 1L << i;
+        }
+      }
+      writer.writeVarLong(nullMask);
+      for (int i = 0; i < values.length; i++) {
+        Object value = values[i];
+        if (value == null) {
+          continue;
+        }
+        switch (types[i]) {
+          case LONG -> writer.writeZigZag((Long) value);
+          case INTEGER -> writer.writeZigZag((Integer) value);
+          case DOUBLE -> writer.writeLong(Double.doubleToRawLongBits((Double) value));
+          case BOOLEAN -> writer.writeByte((Boolean) value ? (byte) 1 : (byte) 0);
+          case STRING -> writer.writeString((String) value);
+          case LONG_LIST -> {
+            List<?> list = (List<?>) value;
+            writer.writeVarLong(list.size());
+            for (Object element : list) {
+              // null внутри списка не поддерживается форматом — пишем 0
+              writer.writeZigZag(element == null ? 0L : (Long) element);
+            }
+          }
+        }
+      }
+    }
+
+    Object read(Reader reader) {
+      long nullMask = reader.readVarLong();
+      Object[] args = new Object[types.length];
+      for (int i = 0; i < types.length; i++) {
+        if ((nullMask & (1L << i)) != 0) {
+          continue;
+        }
+        args[i] = switch (types[i]) {
+          case LONG -> reader.readZigZag();
+          case INTEGER -> (int) reader.readZigZag();
+          case DOUBLE -> Double.longBitsToDouble(reader.readLong());
+          case BOOLEAN -> reader.readByte() != 0;
+          case STRING -> reader.readString();
+          case LONG_LIST -> {
+            int size = (int) reader.readVarLong();
+            List<Long> list = new ArrayList<>(size);
+            for (int j = 0; j < size; j++) {
+              list.add(reader.readZigZag());
+            }
+            yield List.copyOf(list);
+          }
+        };
+      }
+      try {
+        return constructor.newInstance(args);
+      } catch (ReflectiveOperationException e) {
+        throw new IllegalArgumentException("Не удалось восстановить " + constructor.getDeclaringClass().getSimpleName(), e);
+      }
+    }
+
+    private Object value(Object record, int index) {
+      try {
+        return accessors[index].invoke(record);
+      } catch (ReflectiveOperationException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
+  /**
+   * Растущий буфер записи; живёт в ThreadLocal и переиспользуется между событиями.
+   */
+  private static final class Writer {
+    private byte[] buffer;
+    private int position;
+
+    Writer(int capacity) {
+      buffer = new byte[capacity];
+    }
+
+    void reset() {
+      position = 0;
+    }
+
+    int capacity() {
+      return buffer.length;
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf(buffer, position);
+    }
+
+    void writeByte(byte value) {
+      ensure(1);
+      buffer[position++] = value;
+    }
+
+    void writeLong(long value) {
+      ensure(8);
+      for (int shift = 56; shift >= 0; shift -= 8) {
+        buffer[position++] = (byte) (value >>> shift);
+      }
+    }
+
+    void writeZigZag(long value) {
+      writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    void writeVarLong(long value) {
+      ensure(10);
+      while ((value & ~0x7FL) != 0) {
+        buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      buffer[position++] = (byte) value;
+    }
+
+    // UTF-8 пишется прямо в буфер, без промежуточного byte[] от getBytes
+    void writeString(String value) {
+      int length = value.length();
+      int utf8Length = 0;
+      for (int i = 0; i < length; i++) {
+        char c = value.charAt(i);
+        if (c < 0x80) {
+          utf8Length++;
+        } else if (c < 0x800) {
+          utf8Length += 2;
+        } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+          utf8Length += 4;
+          i++;
+        } else if (Character.isSurrogate(c)) {
+          utf8Length++;
+        } else {
+          utf8Length += 3;
+        }
+      }
+      writeVarLong(utf8Length);
+      ensure(utf8Length);
+      for (int i = 0; i < length; i++) {
+        char c = value.charAt(i);
+        if (c < 0x80) {
+          buffer[position++] = (byte) c;
+        } else if (c < 0x800) {
+          buffer[position++] = (byte) (0xC0 | (c >> 6));
+          buffer[position++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+          int codePoint = Character.toCodePoint(c, value.charAt(++i));
+          buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+          buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+          buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+          buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+        } else if (Character.isSurrogate(c)) {
+          // одиночный суррогат заменяется на однобайтовый '?', как в String.getBytes
+          buffer[position++] = '?';
+        } else {
+          buffer[position++] = (byte) (0xE0 | (c >> 12));
+          buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+          buffer[position++] = (byte) (0x80 | (c & 0x3F));
+        }
+      }
+    }
+
+    private void ensure(int extra) {
+      if (position + extra > buffer.length) {
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+      }
+    }
+  }
+
+  private static final class Reader {
+    private final byte[] buffer;
+    private int position;
+
+    Reader(byte[] buffer, int position) {
+      this.buffer = buffer;
+      this.position = position;
+    }
+
+    byte readByte() {
+      if (position >= buffer.length) {
+        throw new IllegalArgumentException("Сообщение обрезано");
+      }
+      return buffer[position++];
+    }
+
+    long readLong() {
+      long value = 0;
+      for (int i = 0; i < 8; i++) {
+        value = (value << 8) | (readByte() & 0xFF);
+      }
+      return value;
+    }
+
+    long readVarLong() {
+      long value = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+        byte b = readByte();
+        value |= (long) (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+      throw new IllegalArgumentException("Некорректный varint");
+    }
+
+    long readZigZag() {
+      long raw = readVarLong();
+      return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    String readString() {
+      int length = (int) readVarLong();
+      if (length < 0 || position + length > buffer.length) {
+        throw new IllegalArgumentException("Сообщение обрезано");
+      }
+      String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+      position += length;
+      return value;
+    }
+  }
+}
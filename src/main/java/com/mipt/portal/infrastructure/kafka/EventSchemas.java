@@ -0,0 +1,58 @@
+package com.mipt.portal.infrastructure.kafka;
+
+import com.mipt.portal.dto.kafka.KafkaEventPayloads;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Реестр схем бинарного конверта: номер схемы -> record из KafkaEventPayloads.
+ * Номера попадают в сообщения, поэтому список только дополняется в конец, а порядок и типы
+ * полей уже зарегистрированного record не меняют — изменённый record регистрируется под новым номером.
+ */
+final class EventSchemas {
+
+  private EventSchemas() {
+  }
+
+  static final List<Class<? extends Record>> BY_ID = List.of(
+      KafkaEventPayloads.AnnouncementCreated.class,            // 1
+      KafkaEventPayloads.AnnouncementSentToModeration.class,   // 2
+      KafkaEventPayloads.AnnouncementStatusChanged.class,      // 3
+      KafkaEventPayloads.AnnouncementUpdated.class,            // 4
+      KafkaEventPayloads.BookingCreated.class,                 // 5
+      KafkaEventPayloads.CommentCreated.class,                 // 6
+      KafkaEventPayloads.CommentUpdated.class,                 // 7
+      KafkaEventPayloads.CommentDeleted.class,                 // 8
+      KafkaEventPayloads.SupportRequestCreated.class,          // 9
+      KafkaEventPayloads.ModerationHistoryRecorded.class,      // 10
+      KafkaEventPayloads.ModerationActionLogged.class,         // 11
+      KafkaEventPayloads.ModerationMessageCreated.class,       // 12
+      KafkaEventPayloads.NotificationRead.class,               // 13
+      KafkaEventPayloads.NotificationDeleted.class,            // 14
+      KafkaEventPayloads.NotificationAllDeleted.class,         // 15
+      KafkaEventPayloads.NotificationAllRead.class,            // 16
+      KafkaEventPayloads.NotificationCreated.class,            // 17
+      KafkaEventPayloads.UserRegistered.class,                 // 18
+      KafkaEventPayloads.UserLogin.class,                      // 19
+      KafkaEventPayloads.UserUpdated.class,                    // 20
+      KafkaEventPayloads.UserAnnouncementChanged.class,        // 21
+      KafkaEventPayloads.UserDeleted.class,                    // 22
+      KafkaEventPayloads.UserRatingUpdated.class,              // 23
+      KafkaEventPayloads.UserFavoriteToggled.class,            // 24
+      KafkaEventPayloads.UserCoinsChanged.class,               // 25
+      KafkaEventPayloads.UserRoleChanged.class,                // 26
+      KafkaEventPayloads.UserPasswordChanged.class,            // 27
+      KafkaEventPayloads.UserDeletedSelf.class,                // 28
+      KafkaEventPayloads.UserSanctionLifted.class,             // 29
+      KafkaEventPayloads.UserSanctionApplied.class             // 30
+  );
+
+  static Map<Class<?>, Integer> idsByClass() {
+    Map<Class<?>, Integer> ids = new HashMap<>();
+    for (int i = 0; i < BY_ID.size(); i++) {
+      ids.put(BY_ID.get(i), i + 1);
+    }
+    return Map.copyOf(ids);
+  }
+}
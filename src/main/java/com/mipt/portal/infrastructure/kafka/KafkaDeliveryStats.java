@@ -0,0 +1,59 @@
+package com.mipt.portal.infrastructure.kafka;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Счётчики доставки в Kafka по топикам: успехи, ошибки, суммарная и максимальная задержка подтверждения.
+ * Заполняются из колбэков отправки, поток отправителя не ждёт.
+ */
+@Component
+public class KafkaDeliveryStats {
+
+  private final Map<String, TopicStats> topics = new ConcurrentHashMap<>();
+
+  public <T> CompletableFuture<T> track(String topic, CompletableFuture<T> future) {
+    long started = System.nanoTime();
+    TopicStats stats = topics.computeIfAbsent(topic, t -> new TopicStats());
+    future.whenComplete((result, error) -> {
+      long latencyMicros = (System.nanoTime() - started) / 1_000;
+      if (error == null) {
+        stats.sent.increment();
+        stats.latencyMicros.add(latencyMicros);
+        stats.maxLatencyMicros.accumulate(latencyMicros);
+      } else {
+        stats.failed.increment();
+      }
+    });
+    return future;
+  }
+
+  public List<Map<String, Object>> snapshot() {
+    List<Map<String, Object>> result = new ArrayList<>();
+    topics.forEach((topic, stats) -> {
+      long sent = stats.sent.sum();
+      Map<String, Object> row = new LinkedHashMap<>();
+      row.put("topic", topic);
+      row.put("sent", sent);
+      row.put("failed", stats.failed.sum());
+      row.put("avgLatencyMs", sent == 0 ? 0.0 : stats.latencyMicros.sum() / 1000.0 / sent);
+      row.put("maxLatencyMs", stats.maxLatencyMicros.get() / 1000.0);
+      result.add(row);
+    });
+    return result;
+  }
+
+  private static final class TopicStats {
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder latencyMicros = new LongAdder();
+    private final LongAccumulator maxLatencyMicros = new LongAccumulator(Math::max, 0);
+  }
+}
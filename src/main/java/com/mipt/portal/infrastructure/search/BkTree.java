@@ -0,0 +1,86 @@
+package com.mipt.portal.infrastructure.search;
+
+import com.mipt.portal.service.LevenshteinSearch;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * BK-дерево словаря по расстоянию Левенштейна.
+ * Поиск с радиусом k обходит только поддеревья с рёбрами в [d - k, d + k] (неравенство треугольника),
+ * поэтому сравнивается лишь малая часть словаря. Удаления не поддерживаются — владелец дерева
+ * отфильтровывает исчезнувшие термы и периодически перестраивает дерево.
+ */
+final class BkTree {
+
+  private Node root;
+  private int size;
+
+  void add(String term) {
+    if (root == null) {
+      root = new Node(term);
+      size = 1;
+      return;
+    }
+    Node node = root;
+    while (true) {
+      int distance = exactDistance(node.term, term);
+      if (distance == 0) {
+        return;
+      }
+      Node child = node.children.get(distance);
+      if (child == null) {
+        node.children.put(distance, new Node(term));
+        node.maxEdge = Math.max(node.maxEdge, distance);
+        size++;
+        return;
+      }
+      node = child;
+    }
+  }
+
+  /**
+   * Передаёт в consumer все термы на расстоянии не больше maxDistance вместе с этим расстоянием.
+   */
+  void search(String term, int maxDistance, ObjIntConsumer<String> consumer) {
+    if (root == null) {
+      return;
+    }
+    Deque<Node> stack = new ArrayDeque<>();
+    stack.push(root);
+    while (!stack.isEmpty()) {
+      Node node = stack.pop();
+      // Дальше maxEdge + maxDistance точное значение не нужно: ни узел, ни его дети уже не подойдут
+      int distance = LevenshteinSearch.boundedLevenshteinDistance(node.term, term, node.maxEdge + maxDistance);
+      if (distance <= maxDistance) {
+        consumer.accept(node.term, distance);
+      }
+      for (Map.Entry<Integer, Node> edge : node.children.entrySet()) {
+        int edgeDistance = edge.getKey();
+        if (edgeDistance >= distance - maxDistance && edgeDistance <= distance + maxDistance) {
+          stack.push(edge.getValue());
+        }
+      }
+    }
+  }
+
+  int size() {
+    return size;
+  }
+
+  private static int exactDistance(String a, String b) {
+    return LevenshteinSearch.boundedLevenshteinDistance(a, b, Math.max(a.length(), b.length()));
+  }
+
+  private static final class Node {
+    private final String term;
+    private final Map<Integer, Node> children = new HashMap<>(4);
+    private int maxEdge;
+
+    private Node(String term) {
+      this.term = term;
+    }
+  }
+}
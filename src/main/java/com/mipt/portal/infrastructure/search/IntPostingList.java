@@ -0,0 +1,59 @@
+package com.mipt.portal.infrastructure.search;
+
+import java.util.Arrays;
+
+/**
+ * Отсортированный список идентификаторов документов без повторов на примитивном int[].
+ * Вставка в конец (типичный случай — новые объявления) выполняется за O(1).
+ */
+final class IntPostingList {
+
+  private int[] docs = new int[4];
+  private int size;
+
+  boolean add(int doc) {
+    if (size == 0 || docs[size - 1] < doc) {
+      ensureCapacity();
+      docs[size++] = doc;
+      return true;
+    }
+    int pos = Arrays.binarySearch(docs, 0, size, doc);
+    if (pos >= 0) {
+      return false;
+    }
+    int insertAt = -pos - 1;
+    ensureCapacity();
+    System.arraycopy(docs, insertAt, docs, insertAt + 1, size - insertAt);
+    docs[insertAt] = doc;
+    size++;
+    return true;
+  }
+
+  boolean remove(int doc) {
+    int pos = Arrays.binarySearch(docs, 0, size, doc);
+    if (pos < 0) {
+      return false;
+    }
+    System.arraycopy(docs, pos + 1, docs, pos, size - pos - 1);
+    size--;
+    return true;
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  int get(int index) {
+    return docs[index];
+  }
+
+  private void ensureCapacity() {
+    if (size == docs.length) {
+      docs = Arrays.copyOf(docs, docs.length * 2);
+    }
+  }
+}
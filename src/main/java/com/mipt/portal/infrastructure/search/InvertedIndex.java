@@ -0,0 +1,272 @@
+package com.mipt.portal.infrastructure.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Инвертированный индекс в памяти с поиском, устойчивым к опечаткам.
+ * Терм запроса раскрывается в кандидатов словаря через BK-дерево (и по префиксу для последнего слова),
+ * списки документов кандидатов объединяются, а результаты по разным словам пересекаются.
+ * Чтения идут параллельно, обновления берут эксклюзивную блокировку.
+ */
+public class InvertedIndex {
+
+  private static final int EXACT_SCORE = 3;
+  private static final int PREFIX_SCORE = 1;
+  private static final int MIN_PREFIX_LENGTH = 3;
+  private static final int MAX_PREFIX_EXPANSIONS = 64;
+  private static final int TREE_REBUILD_SLACK = 1024;
+
+  private final NavigableMap<String, IntPostingList> dictionary = new TreeMap<>();
+  private final Map<Integer, String[]> documentTerms = new HashMap<>();
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private BkTree termTree = new BkTree();
+
+  /**
+   * Добавляет документ или заменяет его термы, если он уже проиндексирован.
+   */
+  public void put(long id, String text) {
+    int doc = Math.toIntExact(id);
+    String[] terms = SearchTokenizer.distinctTokens(text).toArray(String[]::new);
+
+    lock.writeLock().lock();
+    try {
+      removeInternal(doc);
+      for (String term : terms) {
+        IntPostingList postings = dictionary.get(term);
+        if (postings == null) {
+          postings = new IntPostingList();
+          dictionary.put(term, postings);
+          termTree.add(term);
+        }
+        postings.add(doc);
+      }
+      documentTerms.put(doc, terms);
+      rebuildTreeIfSparse();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void remove(long id) {
+    lock.writeLock().lock();
+    try {
+      removeInternal(Math.toIntExact(id));
+      rebuildTreeIfSparse();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void clear() {
+    lock.writeLock().lock();
+    try {
+      dictionary.clear();
+      documentTerms.clear();
+      termTree = new BkTree();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public int documentCount() {
+    lock.readLock().lock();
+    try {
+      return documentTerms.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public int termCount() {
+    lock.readLock().lock();
+    try {
+      return dictionary.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Идентификаторы документов, содержащих все слова запроса (с учётом опечаток),
+   * по убыванию релевантности; при равной релевантности новее — выше.
+   */
+  public List<Long> search(String query, int limit) {
+    List<String> tokens = new ArrayList<>(SearchTokenizer.distinctTokens(query));
+    if (tokens.isEmpty() || limit <= 0) {
+      return List.of();
+    }
+
+    lock.readLock().lock();
+    try {
+      ScoredDocs result = null;
+      for (int i = 0; i < tokens.size(); i++) {
+        ScoredDocs matches = matchToken(tokens.get(i), i == tokens.size() - 1);
+        result = result == null ? matches : result.intersect(matches);
+        if (result.size == 0) {
+          return List.of();
+        }
+      }
+      return result.top(limit);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  static int maxTypos(String token) {
+    int length = token.length();
+    if (length <= 3) {
+      return 0;
+    }
+    return length <= 6 ? 1 : 2;
+  }
+
+  private ScoredDocs matchToken(String token, boolean allowPrefix) {
+    List<IntPostingList> lists = new ArrayList<>();
+    List<Integer> scores = new ArrayList<>();
+    Set<String> seen = new HashSet<>();
+
+    termTree.search(token, maxTypos(token), (term, distance) -> {
+      IntPostingList postings = dictionary.get(term);
+      if (postings != null && seen.add(term)) {
+        lists.add(postings);
+        scores.add(EXACT_SCORE - distance);
+      }
+    });
+
+    if (allowPrefix && token.length() >= MIN_PREFIX_LENGTH) {
+      int expansions = 0;
+      for (Map.Entry<String, IntPostingList> entry
+          : dictionary.subMap(token, false, token + Character.MAX_VALUE, false).entrySet()) {
+        if (expansions++ >= MAX_PREFIX_EXPANSIONS) {
+          break;
+        }
+        if (seen.add(entry.getKey())) {
+          lists.add(entry.getValue());
+          scores.add(PREFIX_SCORE);
+        }
+      }
+    }
+
+    return ScoredDocs.union(lists, scores);
+  }
+
+  private void removeInternal(int doc) {
+    String[] terms = documentTerms.remove(doc);
+    if (terms == null) {
+      return;
+    }
+    for (String term : terms) {
+      IntPostingList postings = dictionary.get(term);
+      if (postings != null && postings.remove(doc) && postings.isEmpty()) {
+        dictionary.remove(term);
+      }
+    }
+  }
+
+  // Дерево хранит и исчезнувшие термы; когда их становится больше живых, собираем его заново
+  private void rebuildTreeIfSparse() {
+    if (termTree.size() <= dictionary.size() * 2 + TREE_REBUILD_SLACK) {
+      return;
+    }
+    BkTree rebuilt = new BkTree();
+    dictionary.keySet().forEach(rebuilt::add);
+    termTree = rebuilt;
+  }
+
+  /**
+   * Отсортированные по id документы с накопленными очками.
+   */
+  private static final class ScoredDocs {
+    private final int[] docs;
+    private final int[] scores;
+    private final int size;
+
+    private ScoredDocs(int[] docs, int[] scores, int size) {
+      this.docs = docs;
+      this.scores = scores;
+      this.size = size;
+    }
+
+    static ScoredDocs union(List<IntPostingList> lists, List<Integer> listScores) {
+      int total = 0;
+      for (IntPostingList list : lists) {
+        total += list.size();
+      }
+
+      // doc в старших битах, «обратный» счёт в младших: после сортировки первым для doc идёт лучший счёт
+      long[] packed = new long[total];
+      int n = 0;
+      for (int i = 0; i < lists.size(); i++) {
+        IntPostingList list = lists.get(i);
+        long inverted = EXACT_SCORE - listScores.get(i);
+        for (int j = 0; j < list.size(); j++) {
+          packed[n++] = ((long) list.get(j) << 32) | inverted;
+        }
+      }
+      if (lists.size() > 1) {
+        Arrays.sort(packed);
+      }
+
+      int[] docs = new int[total];
+      int[] scores = new int[total];
+      int size = 0;
+      for (long value : packed) {
+        int doc = (int) (value >>> 32);
+        if (size > 0 && docs[size - 1] == doc) {
+          continue;
+        }
+        docs[size] = doc;
+        scores[size] = EXACT_SCORE - (int) value;
+        size++;
+      }
+      return new ScoredDocs(docs, scores, size);
+    }
+
+    ScoredDocs intersect(ScoredDocs other) {
+      int[] resultDocs = new int[Math.min(size, other.size)];
+      int[] resultScores = new int[resultDocs.length];
+      int i = 0;
+      int j = 0;
+      int n = 0;
+      while (i < size && j < other.size) {
+        if (docs[i] < other.docs[j]) {
+          i++;
+        } else if (docs[i] > other.docs[j]) {
+          j++;
+        } else {
+          resultDocs[n] = docs[i];
+          resultScores[n] = scores[i] + other.scores[j];
+          n++;
+          i++;
+          j++;
+        }
+      }
+      return new ScoredDocs(resultDocs, resultScores, n);
+    }
+
+    List<Long> top(int limit) {
+      long[] ranked = new long[size];
+      for (int i = 0; i < size; i++) {
+        ranked[i] = ((long) scores[i] << 32) | docs[i];
+      }
+      Arrays.sort(ranked);
+
+      int count = Math.min(limit, size);
+      List<Long> ids = new ArrayList<>(count);
+      for (int i = size - 1; i >= size - count; i--) {
+        ids.add(ranked[i] & 0xFFFFFFFFL);
+      }
+      return ids;
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package com.mipt.portal.infrastructure.search;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Разбивает текст на термы: нижний регистр, «ё» → «е», разделители — всё, кроме букв и цифр.
+ * Однобуквенные термы отбрасываются, кроме чисел.
+ */
+public final class SearchTokenizer {
+
+  private SearchTokenizer() {
+  }
+
+  public static List<String> tokenize(String text) {
+    List<String> tokens = new ArrayList<>();
+    if (text == null || text.isEmpty()) {
+      return tokens;
+    }
+
+    StringBuilder current = new StringBuilder();
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (Character.isLetterOrDigit(c)) {
+        current.append(normalize(c));
+      } else if (!current.isEmpty()) {
+        addToken(tokens, current);
+      }
+    }
+    if (!current.isEmpty()) {
+      addToken(tokens, current);
+    }
+    return tokens;
+  }
+
+  public static Set<String> distinctTokens(String text) {
+    return new LinkedHashSet<>(tokenize(text));
+  }
+
+  private static void addToken(List<String> tokens, StringBuilder current) {
+    if (current.length() > 1 || Character.isDigit(current.charAt(0))) {
+      tokens.add(current.toString());
+    }
+    current.setLength(0);
+  }
+
+  private static char normalize(char c) {
+    char lower = Character.toLowerCase(c);
+    return lower == 'ё' ? 'е' : lower;
+  }
+}
@@ -0,0 +1,219 @@
+package com.mipt.portal.infrastructure.sse;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Открытые SSE-соединения по пользователям.
+ * <p>
+ * Соединение — асинхронный запрос сервлета (SseEmitter): простаивающее соединение не держит поток.
+ * У каждого соединения ограниченный буфер исходящих событий; при переполнении выбрасывается самое
+ * старое, так что медленный клиент не копит память и не тормозит остальных. Буфер разбирает общий
+ * небольшой пул: одновременно у соединения не больше одной задачи записи. Платформенные потоки, а не
+ * виртуальные — запись в SseEmitter идёт под его монитором и закрепила бы виртуальный поток на носителе.
+ * Пульс (комментарий SSE) не даёт прокси закрыть простаивающее соединение и обнаруживает отвалившихся.
+ */
+@Slf4j
+@Component
+public class SseConnectionRegistry {
+
+  private final Map<Long, List<Connection>> connections = new ConcurrentHashMap<>();
+  private final AtomicInteger connectionCount = new AtomicInteger();
+  private final LongAdder delivered = new LongAdder();
+  private final LongAdder dropped = new LongAdder();
+  private final long timeoutMs;
+  private final int bufferSize;
+  private final int maxPerUser;
+  private final ExecutorService sender;
+
+  public SseConnectionRegistry(
+      @Value("${app.notifications.stream.timeout:PT30M}") Duration timeout,
+      @Value("${app.notifications.stream.buffer-size:64}") int bufferSize,
+      @Value("${app.notifications.stream.max-connections-per-user:5}") int maxPerUser,
+      @Value("${app.notifications.stream.sender-threads:4}") int senderThreads) {
+    this.timeoutMs = timeout.toMillis();
+    this.bufferSize = bufferSize;
+    this.maxPerUser = maxPerUser;
+    AtomicInteger threadNumber = new AtomicInteger();
+    this.sender = Executors.newFixedThreadPool(senderThreads, r -> {
+      Thread thread = new Thread(r, "sse-sender-" + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Открывает соединение пользователя. Сверх лимита на пользователя закрывается самое старое
+   * (обычно вкладка, которую давно не трогали).
+   */
+  public SseEmitter register(Long userId) {
+    SseEmitter emitter = new SseEmitter(timeoutMs);
+    Connection connection = new Connection(userId, emitter);
+    List<Connection> userConnections = connections.compute(userId, (id, existing) -> {
+      List<Connection> list = existing == null ? new CopyOnWriteArrayList<>() : existing;
+      list.add(connection);
+      return list;
+    });
+    connectionCount.incrementAndGet();
+
+    emitter.onCompletion(() -> remove(connection));
+    emitter.onTimeout(() -> remove(connection));
+    emitter.onError(e -> remove(connection));
+
+    if (userConnections.size() > maxPerUser) {
+      userConnections.get(0).close();
+    }
+    return emitter;
+  }
+
+  public boolean hasConnections(Long userId) {
+    return connections.containsKey(userId);
+  }
+
+  /**
+   * Ставит событие в буферы всех соединений пользователя; вызывающий поток не ждёт записи.
+   * SseEventBuilder одноразовый (build() дописывает в себя), поэтому каждому соединению
+   * строится свой экземпляр.
+   */
+  public void send(Long userId, Supplier<SseEmitter.SseEventBuilder> event) {
+    List<Connection> userConnections = connections.get(userId);
+    if (userConnections != null) {
+      userConnections.forEach(connection -> connection.enqueue(event.get()));
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${app.notifications.stream.heartbeat-interval-ms:15000}")
+  public void heartbeat() {
+    connections.values().forEach(list -> list.forEach(
+        connection -> connection.enqueue(SseEmitter.event().comment("ping"))));
+  }
+
+  public Map<String, Object> stats() {
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("users", connections.size());
+    stats.put("connections", connectionCount.get());
+    stats.put("delivered", delivered.sum());
+    stats.put("dropped", dropped.sum());
+    return stats;
+  }
+
+  private void remove(Connection connection) {
+    if (!connection.markClosed()) {
+      return;
+    }
+    connectionCount.decrementAndGet();
+    connections.computeIfPresent(connection.userId, (id, list) -> {
+      list.remove(connection);
+      return list.isEmpty() ? null : list;
+    });
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    connections.values().forEach(list -> list.forEach(Connection::close));
+    sender.shutdownNow();
+  }
+
+  private final class Connection {
+    private final Long userId;
+    private final SseEmitter emitter;
+    // Охраняются монитором соединения
+    private final ArrayDeque<SseEmitter.SseEventBuilder> buffer = new ArrayDeque<>();
+    private boolean draining;
+    private boolean closed;
+
+    Connection(Long userId, SseEmitter emitter) {
+      this.userId = userId;
+      this.emitter = emitter;
+    }
+
+    void enqueue(SseEmitter.SseEventBuilder event) {
+      synchronized (this) {
+        if (closed) {
+          return;
+        }
+        if (buffer.size() >= bufferSize) {
+          buffer.pollFirst();
+          dropped.increment();
+        }
+        buffer.addLast(event);
+        if (draining) {
+          return;
+        }
+        draining = true;
+      }
+      try {
+        sender.execute(this::drain);
+      } catch (RejectedExecutionException e) {
+        // приложение останавливается
+        synchronized (this) {
+          draining = false;
+        }
+      }
+    }
+
+    private void drain() {
+      while (true) {
+        SseEmitter.SseEventBuilder event;
+        synchronized (this) {
+          event = buffer.pollFirst();
+          if (event == null || closed) {
+            draining = false;
+            return;
+          }
+        }
+        try {
+          emitter.send(event);
+          delivered.increment();
+        } catch (IOException | IllegalStateException e) {
+          // клиент ушёл: контейнер вызовет onError/onCompletion, но соединение убираем сразу
+          log.debug("SSE connection of user {} closed: {}", userId, e.getMessage());
+          close();
+          return;
+        } catch (RuntimeException e) {
+          // не оставляем draining=true у живого с виду соединения — закрываем, клиент переподключится
+          log.warn("SSE send to user {} failed: {}", userId, e.getMessage(), e);
+          close();
+          return;
+        }
+      }
+    }
+
+    synchronized boolean markClosed() {
+      if (closed) {
+        return false;
+      }
+      closed = true;
+      draining = false;
+      buffer.clear();
+      return true;
+    }
+
+    void close() {
+      remove(this);
+      try {
+        emitter.complete();
+      } catch (IllegalStateException ignored) {
+        // уже завершён
+      }
+    }
+  }
+}
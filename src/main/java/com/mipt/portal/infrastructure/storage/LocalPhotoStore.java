@@ -0,0 +1,176 @@
+package com.mipt.portal.infrastructure.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Хранит фото на локальном диске: root/ab/cd/abcd...ef, где имя файла — SHA-256 содержимого.
+ * Запись идёт во временный файл через FileChannel и затем атомарно переименовывается.
+ * Варианты лежат рядом с оригиналом: root/ab/cd/abcd...ef-480.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.storage.photos.type", havingValue = "local", matchIfMissing = true)
+public class LocalPhotoStore implements PhotoStore {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final Pattern KEY_PATTERN = Pattern.compile("^[0-9a-f]{64}$");
+  private static final Pattern VARIANT_PATTERN = Pattern.compile("^[a-z0-9]{1,16}$");
+
+  private final Path root;
+  private final Path tmpDir;
+
+  public LocalPhotoStore(@Value("${app.storage.photos.root:data/photos}") String root) throws IOException {
+    this.root = Paths.get(root).toAbsolutePath().normalize();
+    this.tmpDir = this.root.resolve("tmp");
+    Files.createDirectories(tmpDir);
+    log.info("Local photo store initialized at {}", this.root);
+  }
+
+  @Override
+  public String save(InputStream content) throws IOException {
+    MessageDigest digest = sha256();
+    Path tmp = writeTemp(content, digest);
+    try {
+      String key = HexFormat.of().formatHex(digest.digest());
+      Path target = resolve(key);
+      if (Files.exists(target)) {
+        // Такое фото уже есть — дедупликация по содержимому
+        Files.deleteIfExists(tmp);
+        return key;
+      }
+      moveIntoPlace(tmp, target);
+      return key;
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(tmp);
+      throw e;
+    }
+  }
+
+  @Override
+  public void saveVariant(String key, String variant, InputStream content) throws IOException {
+    Path target = resolveVariant(key, variant);
+    Path tmp = writeTemp(content, null);
+    try {
+      moveIntoPlace(tmp, target);
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(tmp);
+      throw e;
+    }
+  }
+
+  @Override
+  public Optional<Resource> loadVariant(String key, String variant) {
+    if (!isValidKey(key) || variant == null || !VARIANT_PATTERN.matcher(variant).matches()) {
+      return Optional.empty();
+    }
+    Path path = resolveVariant(key, variant);
+    return Files.isReadable(path) ? Optional.of(new FileSystemResource(path)) : Optional.empty();
+  }
+
+  private Path writeTemp(InputStream content, MessageDigest digest) throws IOException {
+    Path tmp = Files.createTempFile(tmpDir, "upload-", ".part");
+    try (ReadableByteChannel in = Channels.newChannel(content);
+         FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+      while (in.read(buffer) != -1) {
+        buffer.flip();
+        if (digest != null) {
+          digest.update(buffer.array(), 0, buffer.limit());
+        }
+        while (buffer.hasRemaining()) {
+          out.write(buffer);
+        }
+        buffer.clear();
+      }
+      out.force(false);
+      return tmp;
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(tmp);
+      throw e;
+    }
+  }
+
+  private void moveIntoPlace(Path tmp, Path target) throws IOException {
+    Files.createDirectories(target.getParent());
+    try {
+      Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+    } catch (FileAlreadyExistsException e) {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  @Override
+  public Optional<Resource> load(String key) {
+    if (!isValidKey(key)) {
+      return Optional.empty();
+    }
+    Path path = resolve(key);
+    return Files.isReadable(path) ? Optional.of(new FileSystemResource(path)) : Optional.empty();
+  }
+
+  @Override
+  public boolean delete(String key) throws IOException {
+    if (!isValidKey(key)) {
+      return false;
+    }
+    Path original = resolve(key);
+    try (Stream<Path> variants = Files.list(original.getParent())) {
+      for (Path variant : variants.filter(p -> p.getFileName().toString().startsWith(key + "-")).toList()) {
+        Files.deleteIfExists(variant);
+      }
+    } catch (NoSuchFileException e) {
+      return false;
+    }
+    return Files.deleteIfExists(original);
+  }
+
+  private Path resolve(String key) {
+    if (!isValidKey(key)) {
+      throw new IllegalArgumentException("Некорректный ключ фото: " + key);
+    }
+    return root.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key);
+  }
+
+  private Path resolveVariant(String key, String variant) {
+    if (variant == null || !VARIANT_PATTERN.matcher(variant).matches()) {
+      throw new IllegalArgumentException("Некорректное имя варианта фото: " + variant);
+    }
+    return resolve(key).resolveSibling(key + "-" + variant);
+  }
+
+  private static boolean isValidKey(String key) {
+    return key != null && KEY_PATTERN.matcher(key).matches();
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 недоступен", e);
+    }
+  }
+}
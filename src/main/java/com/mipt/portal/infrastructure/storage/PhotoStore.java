@@ -0,0 +1,55 @@
+package com.mipt.portal.infrastructure.storage;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLConnection;
+import java.util.Optional;
+import org.springframework.core.io.Resource;
+
+/**
+ * Хранилище фотографий объявлений, адресуемое по содержимому.
+ * Ключ — SHA-256 от байтов файла в hex, поэтому одинаковые фото хранятся один раз.
+ */
+public interface PhotoStore {
+
+  /**
+   * Сохраняет поток целиком и возвращает ключ содержимого.
+   */
+  String save(InputStream content) throws IOException;
+
+  default String save(byte[] content) throws IOException {
+    return save(new ByteArrayInputStream(content));
+  }
+
+  /**
+   * Ресурс для потоковой отдачи; пустой, если ключ неизвестен.
+   */
+  Optional<Resource> load(String key);
+
+  /**
+   * Удаляет оригинал вместе со всеми его уменьшенными вариантами.
+   */
+  boolean delete(String key) throws IOException;
+
+  /**
+   * Сохраняет производный вариант (например, превью 480px) рядом с оригиналом.
+   */
+  void saveVariant(String key, String variant, InputStream content) throws IOException;
+
+  Optional<Resource> loadVariant(String key, String variant);
+
+  /**
+   * Определяет MIME-тип по первым байтам файла; null, если распознать не удалось.
+   */
+  default String detectContentType(String key) {
+    return load(key).map(resource -> {
+      try (InputStream in = new BufferedInputStream(resource.getInputStream())) {
+        return URLConnection.guessContentTypeFromStream(in);
+      } catch (IOException e) {
+        return null;
+      }
+    }).orElse(null);
+  }
+}
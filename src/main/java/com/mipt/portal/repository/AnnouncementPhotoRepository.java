@@ -0,0 +1,41 @@
+package com.mipt.portal.repository;
+
+import com.mipt.portal.dto.PhotoMetadata;
+import com.mipt.portal.entity.AnnouncementPhoto;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AnnouncementPhotoRepository extends JpaRepository<AnnouncementPhoto, Long> {
+    List<AnnouncementPhoto> findAllByAdIdOrderByPosition(Long adId);
+
+    Optional<AnnouncementPhoto> findByAdIdAndPosition(Long adId, int position);
+
+    long countByAdId(Long adId);
+
+    boolean existsByPhotoKey(String photoKey);
+
+    /**
+     * Транзакционная advisory-блокировка ключа файла: под ней загрузка убеждается, что найденный
+     * дедупликацией файл на месте, а очистка проверяет ссылки и удаляет файл.
+     */
+    @Query(value = "SELECT count(*) FROM (SELECT pg_advisory_xact_lock(hashtext(:photoKey))) l", nativeQuery = true)
+    long lockPhotoKey(@Param("photoKey") String photoKey);
+
+    @Query("SELECT new com.mipt.portal.dto.PhotoMetadata(p.photoKey, p.contentType, p.updatedAt) "
+        + "FROM AnnouncementPhoto p WHERE p.adId = :adId AND p.position = :position")
+    Optional<PhotoMetadata> findMetadata(@Param("adId") Long adId, @Param("position") int position);
+
+    @Query("SELECT COALESCE(MAX(p.position), -1) FROM AnnouncementPhoto p WHERE p.adId = :adId")
+    int findMaxPosition(@Param("adId") Long adId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE AnnouncementPhoto p SET p.position = p.position - 1, p.updatedAt = CURRENT_TIMESTAMP WHERE p.adId = :adId AND p.position > :position")
+    int shiftLeftAfter(@Param("adId") Long adId, @Param("position") int position);
+}
@@ -1,17 +1,19 @@
 package com.mipt.portal.repository;
 
+import com.mipt.portal.dto.AnnouncementSummaryDto;
 import com.mipt.portal.entity.Announcement;
 import com.mipt.portal.enums.AdStatus;
 import com.mipt.portal.enums.Category;
 import jakarta.persistence.LockModeType;
 import java.time.Instant;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,6 +29,26 @@ public interface AnnouncementRepository extends JpaRepository<Announcement, Long
 
     List<Announcement> findAllByStatus(AdStatus status);
 
+    List<Announcement> findByStatusAndIdGreaterThanOrderByIdAsc(AdStatus status, Long id, Pageable pageable);
+
+    @Query("SELECT new com.mipt.portal.dto.AnnouncementSummaryDto(a.id, a.title, a.category, a.subcategory, "
+        + "a.condition, a.price, a.location, a.authorId, a.status, a.viewCount, a.createdAt) "
+        + "FROM Announcement a WHERE a.id IN :ids AND a.status = :status")
+    List<AnnouncementSummaryDto> findSummariesByIdInAndStatus(@Param("ids") Collection<Long> ids,
+                                                             @Param("status") AdStatus status);
+
+    /**
+     * Полнотекстовый поиск по search_vector (вес A — заголовок, B — описание, словари russian и english)
+     * плюс опечатки в заголовке через pg_trgm. Порядок — ts_rank, затем похожесть заголовка.
+     */
+    @Query(value = "SELECT a.id FROM ads a, "
+        + "websearch_to_tsquery('russian', :text) qr, websearch_to_tsquery('english', :text) qe "
+        + "WHERE a.status = 'ACTIVE' "
+        + "AND (a.search_vector @@ qr OR a.search_vector @@ qe OR LOWER(:text) <% LOWER(a.title)) "
+        + "ORDER BY ts_rank(a.search_vector, qr || qe) DESC, word_similarity(LOWER(:text), LOWER(a.title)) DESC, a.id DESC "
+        + "LIMIT :limit", nativeQuery = true)
+    List<Long> findTextMatchIds(@Param("text") String text, @Param("limit") int limit);
+
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT a FROM Announcement a WHERE a.id = :id")
     Optional<Announcement> findByIdWithLock(@Param("id") Long id);
@@ -34,8 +56,14 @@ public interface AnnouncementRepository extends JpaRepository<Announcement, Long
     List<Announcement> findByAuthorId(Long authorId);
 
     List<Announcement> findByStatusAndUpdatedAtBefore(AdStatus status, Instant date);
-    @Modifying
-    @Query("UPDATE Announcement a SET a.viewCount = a.viewCount + 1 WHERE a.id = :id")
-    int incrementViews(@Param("id") Long id);
     List<Announcement> findByStatusAndNotifiedAtBefore(AdStatus status, Instant date);
+
+    boolean existsByPhotoKey(String photoKey);
+
+    @Query("SELECT a.authorId FROM Announcement a WHERE a.id = :id")
+    Optional<Long> findAuthorIdById(@Param("id") Long id);
+
+    // Пары (id объявления, id автора)
+    @Query("SELECT a.id, a.authorId FROM Announcement a WHERE a.id IN :ids")
+    List<Object[]> findAuthorIdsByIdIn(@Param("ids") Collection<Long> ids);
 }
\ No newline at end of file
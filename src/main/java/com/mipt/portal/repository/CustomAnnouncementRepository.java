@@ -1,10 +1,24 @@
 package com.mipt.portal.repository;
 
 import com.mipt.portal.dto.AnnouncementFilterDto;
+import com.mipt.portal.dto.AnnouncementPageDto;
 import com.mipt.portal.entity.Announcement;
+import com.mipt.portal.enums.AnnouncementSortField;
 
 import java.util.List;
 
 public interface CustomAnnouncementRepository {
-  List<Announcement> searchApproved(AnnouncementFilterDto filter, String sortBy, String direction);
+  List<Announcement> searchApproved(AnnouncementFilterDto filter, AnnouncementSortField sortField, String direction);
+
+  /**
+   * textMatch — как проверять текст фильтра; список id в порядке релевантности имеет смысл только при сортировке RELEVANCE.
+   */
+  List<Announcement> searchApproved(AnnouncementFilterDto filter, AnnouncementSortField sortField, String direction,
+                                    TextMatch textMatch);
+
+  AnnouncementPageDto searchApprovedPage(AnnouncementFilterDto filter, AnnouncementSortField sortField,
+                                         String direction, String cursor, int limit);
+
+  AnnouncementPageDto searchApprovedPage(AnnouncementFilterDto filter, AnnouncementSortField sortField,
+                                         String direction, String cursor, int limit, TextMatch textMatch);
 }
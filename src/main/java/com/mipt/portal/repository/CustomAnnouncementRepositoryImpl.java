@@ -1,70 +1,254 @@
 package com.mipt.portal.repository;
 
 import com.mipt.portal.dto.AnnouncementFilterDto;
+import com.mipt.portal.dto.AnnouncementPageDto;
+import com.mipt.portal.dto.AnnouncementSummaryDto;
 import com.mipt.portal.entity.Announcement;
-import com.mipt.portal.enums.AdStatus;
+import com.mipt.portal.enums.AnnouncementSortField;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.TypedQuery;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
+/**
+ * Поиск по объявлениям через конечный набор заранее разобранных запросов.
+ * Форма запроса определяется битовой маской заполненных фильтров, полем сортировки из
+ * {@link AnnouncementSortField} и направлением. JPQL каждой формы собирается один раз и
+ * регистрируется как именованный запрос, так что на горячем пути HQL не парсится,
+ * а кэш планов Hibernate не растёт от пользовательского ввода.
+ */
 @Repository
 @Transactional(readOnly = true)
 public class CustomAnnouncementRepositoryImpl implements CustomAnnouncementRepository {
 
+  // Статус — литерал, а не параметр: generic-план подготовленного запроса
+  // не может доказать условие частичных индексов WHERE status = 'ACTIVE'
+  private static final String ACTIVE_ONLY = "a.status = com.mipt.portal.enums.AdStatus.ACTIVE";
+
+  private static final String ENTITY_SELECT = "SELECT a FROM Announcement a WHERE " + ACTIVE_ONLY;
+
+  private static final String SUMMARY_SELECT = "SELECT new com.mipt.portal.dto.AnnouncementSummaryDto("
+      + "a.id, a.title, a.category, a.subcategory, a.condition, a.price, a.location, "
+      + "a.authorId, a.status, a.viewCount, a.createdAt) FROM Announcement a WHERE " + ACTIVE_ONLY;
+
+  // Биты маски фильтров
+  private static final int TEXT_IDS = 1;
+  private static final int TEXT_LIKE = 1 << 1;
+  private static final int MIN_PRICE = 1 << 2;
+  private static final int MAX_PRICE = 1 << 3;
+  private static final int CATEGORY = 1 << 4;
+  private static final int SUBCATEGORY = 1 << 5;
+  private static final int CONDITION = 1 << 6;
+  private static final int CREATED_AFTER = 1 << 7;
+  private static final int AFTER_CURSOR = 1 << 8;
+  private static final int TEXT_FULL = 1 << 9;
+
+  private static final String LIST_PREFIX = "Announcement.searchApproved.";
+  private static final String PAGE_PREFIX = "Announcement.searchApprovedPage.";
+
+  // Имена уже зарегистрированных в EntityManagerFactory запросов
+  private final Set<String> registered = ConcurrentHashMap.newKeySet();
+
   @PersistenceContext
   private EntityManager em;
 
   @Override
-  public List<Announcement> searchApproved(AnnouncementFilterDto filter, String sortBy, String direction) {
-    StringBuilder jpql = new StringBuilder("SELECT a FROM Announcement a WHERE a.status = :status");
+  public List<Announcement> searchApproved(AnnouncementFilterDto filter, AnnouncementSortField sortField,
+                                           String direction) {
+    return searchApproved(filter, sortField, direction, TextMatch.LIKE);
+  }
 
-    appendFilterConditions(jpql, filter);
+  @Override
+  public List<Announcement> searchApproved(AnnouncementFilterDto filter, AnnouncementSortField sortField,
+                                           String direction, TextMatch textMatch) {
+    List<Long> textMatchIds = textMatch.rankedIds();
+    // Список id — лишь верхушка выдачи по релевантности: с другой сортировкой он дал бы неверный порядок и неполный результат
+    if (textMatchIds != null && sortField != AnnouncementSortField.RELEVANCE) {
+      throw new IllegalArgumentException("Список id по релевантности допустим только при сортировке RELEVANCE");
+    }
+    if (textMatchIds != null && textMatchIds.isEmpty()) {
+      return List.of();
+    }
+    boolean ascending = "ASC".equalsIgnoreCase(direction);
+    // Без текстового запроса упорядочивать по релевантности нечем
+    boolean byRelevance = sortField == AnnouncementSortField.RELEVANCE && textMatchIds != null;
+    AnnouncementSortField field = sortField == null || (sortField == AnnouncementSortField.RELEVANCE && !byRelevance)
+        ? AnnouncementSortField.CREATED_AT : sortField;
 
-    String sortField = (sortBy != null && !sortBy.isBlank()) ? sortBy : "createdAt";
-    String sortDir = ("ASC".equalsIgnoreCase(direction)) ? "ASC" : "DESC";
-    if (sortField.matches("^\\w+$")) {
-      jpql.append(" ORDER BY a.").append(sortField).append(" ").append(sortDir);
+    int mask = filterMask(filter, textMatch);
+    String name = LIST_PREFIX + mask + '.' + field.name() + (ascending ? ".ASC" : ".DESC");
+    TypedQuery<Announcement> query = namedQuery(name, Announcement.class,
+        () -> listJpql(mask, field, ascending));
+    setQueryParameters(query, filter, textMatch);
+
+    List<Announcement> result = query.getResultList();
+    if (byRelevance) {
+      // textMatchIds уже упорядочены поисковым движком по релевантности
+      Map<Long, Integer> rank = new HashMap<>();
+      for (int i = 0; i < textMatchIds.size(); i++) {
+        rank.putIfAbsent(textMatchIds.get(i), i);
+      }
+      result = new ArrayList<>(result);
+      result.sort(Comparator.comparing(ad -> rank.get(ad.getId())));
     }
+    return result;
+  }
 
-    TypedQuery<Announcement> query = em.createQuery(jpql.toString(), Announcement.class);
-    query.setParameter("status", AdStatus.ACTIVE);
+  @Override
+  public AnnouncementPageDto searchApprovedPage(AnnouncementFilterDto filter, AnnouncementSortField sortField,
+                                                String direction, String cursor, int limit) {
+    return searchApprovedPage(filter, sortField, direction, cursor, limit, TextMatch.LIKE);
+  }
+
+  @Override
+  public AnnouncementPageDto searchApprovedPage(AnnouncementFilterDto filter, AnnouncementSortField sortField,
+                                                String direction, String cursor, int limit,
+                                                TextMatch textMatch) {
+    // Keyset-страница сортируется по createdAt или price — обрезанный список id по релевантности здесь неприменим
+    if (textMatch.rankedIds() != null) {
+      throw new IllegalArgumentException("Список id по релевантности неприменим к keyset-пагинации");
+    }
+    // Для keyset-пагинации годятся только поля, по которым курсор можно однозначно восстановить
+    AnnouncementSortField field = sortField != null && sortField.isKeyset()
+        ? sortField : AnnouncementSortField.CREATED_AT;
+    boolean ascending = "ASC".equalsIgnoreCase(direction);
+
+    SearchCursor after = (cursor != null && !cursor.isBlank())
+        ? SearchCursor.decode(cursor, field.getProperty()) : null;
+    int mask = filterMask(filter, textMatch) | (after != null ? AFTER_CURSOR : 0);
+
+    String name = PAGE_PREFIX + mask + '.' + field.name() + (ascending ? ".ASC" : ".DESC");
+    TypedQuery<AnnouncementSummaryDto> query = namedQuery(name, AnnouncementSummaryDto.class,
+        () -> pageJpql(mask, field, ascending));
+    setQueryParameters(query, filter, textMatch);
+    if (after != null) {
+      query.setParameter("cursorValue", after.sortValue());
+      query.setParameter("cursorId", after.id());
+    }
+    // Берём на одну строку больше, чтобы понять, есть ли следующая страница, без COUNT(*)
+    query.setMaxResults(limit + 1);
 
-    setQueryParameters(query, filter);
+    List<AnnouncementSummaryDto> rows = query.getResultList();
+    boolean hasMore = rows.size() > limit;
+    List<AnnouncementSummaryDto> items = hasMore ? rows.subList(0, limit) : rows;
 
-    return query.getResultList();
+    String nextCursor = null;
+    if (hasMore) {
+      AnnouncementSummaryDto last = items.get(items.size() - 1);
+      Object lastValue = field == AnnouncementSortField.PRICE ? last.getPrice() : last.getCreatedAt();
+      nextCursor = new SearchCursor(field.getProperty(), lastValue, last.getId()).encode();
+    }
+    return new AnnouncementPageDto(List.copyOf(items), nextCursor, hasMore);
   }
 
+  /**
+   * Возвращает именованный запрос, при первом обращении разбирая JPQL и регистрируя его.
+   * Гонка двух потоков на одной форме безопасна: addNamedQuery просто перезапишет определение.
+   */
+  private <T> TypedQuery<T> namedQuery(String name, Class<T> resultType, Supplier<String> jpql) {
+    if (!registered.contains(name)) {
+      em.getEntityManagerFactory().addNamedQuery(name, em.createQuery(jpql.get(), resultType));
+      registered.add(name);
+    }
+    return em.createNamedQuery(name, resultType);
+  }
 
-  private void appendFilterConditions(StringBuilder jpql, AnnouncementFilterDto filter) {
-    if (filter.getText() != null && !filter.getText().isBlank()) {
-      jpql.append(" AND (LOWER(a.title) LIKE LOWER(:text) OR LOWER(a.description) LIKE LOWER(:text))");
+  private static String listJpql(int mask, AnnouncementSortField field, boolean ascending) {
+    StringBuilder jpql = new StringBuilder(ENTITY_SELECT);
+    appendFilterConditions(jpql, mask);
+    if (field != AnnouncementSortField.RELEVANCE) {
+      jpql.append(" ORDER BY a.").append(field.getProperty()).append(ascending ? " ASC" : " DESC");
+    }
+    return jpql.toString();
+  }
+
+  private static String pageJpql(int mask, AnnouncementSortField field, boolean ascending) {
+    String property = field.getProperty();
+    String sortDir = ascending ? "ASC" : "DESC";
+    StringBuilder jpql = new StringBuilder(SUMMARY_SELECT);
+    appendFilterConditions(jpql, mask);
+    if ((mask & AFTER_CURSOR) != 0) {
+      String cmp = ascending ? ">" : "<";
+      jpql.append(" AND (a.").append(property).append(' ').append(cmp).append(" :cursorValue")
+          .append(" OR (a.").append(property).append(" = :cursorValue AND a.id ").append(cmp).append(" :cursorId))");
+    }
+    jpql.append(" ORDER BY a.").append(property).append(' ').append(sortDir)
+        .append(", a.id ").append(sortDir);
+    return jpql.toString();
+  }
+
+  private static int filterMask(AnnouncementFilterDto filter, TextMatch textMatch) {
+    int mask = 0;
+    if (textMatch.rankedIds() != null) {
+      mask |= TEXT_IDS;
+    } else if (filter.getText() != null && !filter.getText().isBlank()) {
+      mask |= textMatch.fullText() ? TEXT_FULL : TEXT_LIKE;
     }
     if (filter.getMinPrice() != null) {
-      jpql.append(" AND a.price >= :minPrice");
+      mask |= MIN_PRICE;
     }
     if (filter.getMaxPrice() != null) {
-      jpql.append(" AND a.price <= :maxPrice");
+      mask |= MAX_PRICE;
     }
     if (filter.getCategory() != null) {
-      jpql.append(" AND a.category = :category");
+      mask |= CATEGORY;
     }
     if (filter.getSubcategory() != null && !filter.getSubcategory().isBlank()) {
-      jpql.append(" AND a.subcategory = :subcategory");
+      mask |= SUBCATEGORY;
     }
     if (filter.getCondition() != null) {
-      jpql.append(" AND a.condition = :condition");
+      mask |= CONDITION;
     }
     if (filter.getCreatedAfter() != null) {
+      mask |= CREATED_AFTER;
+    }
+    return mask;
+  }
+
+  private static void appendFilterConditions(StringBuilder jpql, int mask) {
+    if ((mask & TEXT_IDS) != 0) {
+      jpql.append(" AND a.id IN :textMatchIds");
+    } else if ((mask & TEXT_FULL) != 0) {
+      jpql.append(" AND ad_text_match(a.id, :textQuery) = true");
+    } else if ((mask & TEXT_LIKE) != 0) {
+      jpql.append(" AND (LOWER(a.title) LIKE LOWER(:text) OR LOWER(a.description) LIKE LOWER(:text))");
+    }
+    if ((mask & MIN_PRICE) != 0) {
+      jpql.append(" AND a.price >= :minPrice");
+    }
+    if ((mask & MAX_PRICE) != 0) {
+      jpql.append(" AND a.price <= :maxPrice");
+    }
+    if ((mask & CATEGORY) != 0) {
+      jpql.append(" AND a.category = :category");
+    }
+    if ((mask & SUBCATEGORY) != 0) {
+      jpql.append(" AND a.subcategory = :subcategory");
+    }
+    if ((mask & CONDITION) != 0) {
+      jpql.append(" AND a.condition = :condition");
+    }
+    if ((mask & CREATED_AFTER) != 0) {
       jpql.append(" AND a.createdAt >= :createdAfter");
     }
   }
 
-  private void setQueryParameters(TypedQuery<Announcement> query, AnnouncementFilterDto filter) {
-    if (filter.getText() != null && !filter.getText().isBlank()) {
+  private void setQueryParameters(TypedQuery<?> query, AnnouncementFilterDto filter, TextMatch textMatch) {
+    if (textMatch.rankedIds() != null) {
+      query.setParameter("textMatchIds", textMatch.rankedIds());
+    } else if (filter.getText() != null && !filter.getText().isBlank() && textMatch.fullText()) {
+      query.setParameter("textQuery", filter.getText().trim());
+    } else if (filter.getText() != null && !filter.getText().isBlank()) {
       query.setParameter("text", "%" + filter.getText() + "%");
     }
     if (filter.getMinPrice() != null) {
@@ -0,0 +1,28 @@
+package com.mipt.portal.repository;
+
+import com.mipt.portal.entity.NotificationAdCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface NotificationAdCounterRepository extends JpaRepository<NotificationAdCounter, NotificationAdCounter.Key> {
+
+    @Modifying
+    @Query(value = "INSERT INTO notification_ad_counters (user_id, ad_id, unread_count) VALUES (:userId, :adId, 1) "
+        + "ON CONFLICT (user_id, ad_id) DO UPDATE SET unread_count = notification_ad_counters.unread_count + 1",
+        nativeQuery = true)
+    int increment(@Param("userId") Long userId, @Param("adId") Long adId);
+
+    @Query("SELECT c FROM NotificationAdCounter c WHERE c.id.userId = :userId AND c.unreadCount > 0")
+    List<NotificationAdCounter> findUnreadByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT COALESCE(SUM(c.unreadCount), 0) FROM NotificationAdCounter c "
+        + "WHERE c.id.userId = :userId AND c.id.adId IN :adIds")
+    long sumUnread(@Param("userId") Long userId, @Param("adIds") Collection<Long> adIds);
+}
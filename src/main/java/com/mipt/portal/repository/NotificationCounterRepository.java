@@ -0,0 +1,29 @@
+package com.mipt.portal.repository;
+
+import com.mipt.portal.entity.NotificationCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface NotificationCounterRepository extends JpaRepository<NotificationCounter, Long> {
+
+    /**
+     * Учитывает новое уведомление, создавая строку при первом уведомлении пользователя.
+     * Уменьшают счётчик запросы NotificationRepository, изменяющие уведомления.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO notification_counters (user_id, unread_count, latest_notification_id) "
+        + "VALUES (:userId, 1, :notificationId) "
+        + "ON CONFLICT (user_id) DO UPDATE SET unread_count = notification_counters.unread_count + 1, "
+        + "latest_notification_id = GREATEST(notification_counters.latest_notification_id, :notificationId)",
+        nativeQuery = true)
+    int registerCreated(@Param("userId") Long userId, @Param("notificationId") Long notificationId);
+
+    @Query("SELECT c.unreadCount FROM NotificationCounter c WHERE c.userId = :userId")
+    Optional<Integer> findUnreadCount(@Param("userId") Long userId);
+}
@@ -0,0 +1,80 @@
+package com.mipt.portal.repository;
+
+import com.mipt.portal.entity.Notification;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface NotificationRepository extends JpaRepository<Notification, Long> {
+
+    String INBOX_ORDER = " ORDER BY n.createdAt DESC, n.id DESC";
+
+    @Query("SELECT n FROM Notification n WHERE n.userId = :userId" + INBOX_ORDER)
+    List<Notification> findInboxFirstPage(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT n FROM Notification n WHERE n.userId = :userId "
+        + "AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id))" + INBOX_ORDER)
+    List<Notification> findInboxAfter(@Param("userId") Long userId, @Param("createdAt") Instant createdAt,
+                                      @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT n FROM Notification n WHERE n.userId = :userId AND n.adId IN :adIds" + INBOX_ORDER)
+    List<Notification> findByUserIdAndAdIds(@Param("userId") Long userId, @Param("adIds") Collection<Long> adIds);
+
+    @Query("SELECT n.userId FROM Notification n WHERE n.id = :id")
+    Optional<Long> findUserIdById(@Param("id") Long id);
+
+    /*
+     * Изменяющие запросы — один оператор с data-modifying CTE: changed меняет notifications
+     * и возвращает ad_id и признак «было непрочитано» для каждой строки, следующие CTE вычитают
+     * непрочитанные из notification_ad_counters и notification_counters. Возвращается число
+     * изменённых уведомлений. Условие на is_read делает повторы и гонки вкладок/узлов безопасными:
+     * уже прочитанная строка не попадёт в changed второй раз.
+     */
+    String APPLY_TO_COUNTERS = ", per_ad AS (SELECT ad_id, COUNT(*) FILTER (WHERE was_unread) AS unread, "
+        + "COUNT(*) AS total FROM changed GROUP BY ad_id), "
+        + "ad_counters AS (UPDATE notification_ad_counters c SET unread_count = GREATEST(c.unread_count - p.unread, 0) "
+        + "FROM per_ad p WHERE c.user_id = :userId AND c.ad_id = p.ad_id AND p.unread > 0), "
+        + "user_counter AS (UPDATE notification_counters c "
+        + "SET unread_count = GREATEST(c.unread_count - (SELECT SUM(unread) FROM per_ad), 0) "
+        + "WHERE c.user_id = :userId AND (SELECT SUM(unread) FROM per_ad) > 0) "
+        + "SELECT CAST(COALESCE(SUM(total), 0) AS BIGINT) FROM per_ad";
+
+    @Transactional
+    @Query(value = "WITH changed AS (UPDATE notifications SET is_read = true "
+        + "WHERE id = :id AND user_id = :userId AND is_read = false RETURNING ad_id, true AS was_unread)"
+        + APPLY_TO_COUNTERS, nativeQuery = true)
+    long markRead(@Param("id") Long id, @Param("userId") Long userId);
+
+    @Transactional
+    @Query(value = "WITH changed AS (UPDATE notifications SET is_read = true "
+        + "WHERE user_id = :userId AND is_read = false RETURNING ad_id, true AS was_unread)"
+        + APPLY_TO_COUNTERS, nativeQuery = true)
+    long markAllRead(@Param("userId") Long userId);
+
+    @Transactional
+    @Query(value = "WITH changed AS (UPDATE notifications SET is_read = true "
+        + "WHERE user_id = :userId AND ad_id IN (:adIds) AND is_read = false RETURNING ad_id, true AS was_unread)"
+        + APPLY_TO_COUNTERS, nativeQuery = true)
+    long markAllReadByAdIds(@Param("userId") Long userId, @Param("adIds") Collection<Long> adIds);
+
+    @Transactional
+    @Query(value = "WITH changed AS (DELETE FROM notifications "
+        + "WHERE id = :id AND user_id = :userId RETURNING ad_id, NOT is_read AS was_unread)"
+        + APPLY_TO_COUNTERS, nativeQuery = true)
+    long deleteOne(@Param("id") Long id, @Param("userId") Long userId);
+
+    @Transactional
+    @Query(value = "WITH changed AS (DELETE FROM notifications "
+        + "WHERE user_id = :userId AND ad_id IN (:adIds) RETURNING ad_id, NOT is_read AS was_unread)"
+        + APPLY_TO_COUNTERS, nativeQuery = true)
+    long deleteByAdIds(@Param("userId") Long userId, @Param("adIds") Collection<Long> adIds);
+}
@@ -0,0 +1,45 @@
+package com.mipt.portal.repository;
+
+import com.mipt.portal.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Блокировка до конца транзакции: true — этот экземпляр сейчас единственный разбирает outbox.
+     */
+    @Query(value = "SELECT pg_try_advisory_xact_lock(:lockId)", nativeQuery = true)
+    boolean tryRelayLock(@Param("lockId") long lockId);
+
+    /**
+     * Очередная пачка неотправленных событий. Экземпляры сериализует tryRelayLock;
+     * SKIP LOCKED лишь страхует от ожидания на строках, если блокировку обошли.
+     * Берутся только строки транзакций старше xmin текущего снимка: пока идёт более ранняя транзакция,
+     * её ещё не видимые строки с меньшим id не обгоняются строками тех, кто закоммитился быстрее.
+     */
+    @Query(value = "SELECT * FROM outbox_events WHERE sent_at IS NULL "
+        + "AND tx_id < pg_snapshot_xmin(pg_current_snapshot()) ORDER BY id LIMIT :limit "
+        + "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxEvent> lockNextBatch(@Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.sentAt = :sentAt WHERE e.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("sentAt") Instant sentAt);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.attempts = e.attempts + 1, e.lastError = :error WHERE e.id IN :ids")
+    int markFailed(@Param("ids") Collection<Long> ids, @Param("error") String error);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.sentAt < :before")
+    int deleteSentBefore(@Param("before") Instant before);
+}
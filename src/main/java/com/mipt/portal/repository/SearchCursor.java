@@ -0,0 +1,53 @@
+package com.mipt.portal.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Курсор keyset-пагинации: значение поля сортировки последней строки страницы и её id.
+ * Клиенту отдаётся как непрозрачная base64url-строка.
+ */
+public record SearchCursor(String sortField, Object sortValue, long id) {
+
+  private static final char SEPARATOR = '|';
+
+  public String encode() {
+    String raw = sortField + SEPARATOR + sortValue + SEPARATOR + id;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static SearchCursor decode(String token, String expectedSortField) {
+    String raw;
+    try {
+      raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Некорректный курсор", e);
+    }
+
+    int first = raw.indexOf(SEPARATOR);
+    int last = raw.lastIndexOf(SEPARATOR);
+    if (first < 0 || first == last) {
+      throw new IllegalArgumentException("Некорректный курсор");
+    }
+    String field = raw.substring(0, first);
+    if (!field.equals(expectedSortField)) {
+      throw new IllegalArgumentException("Курсор выдан для другой сортировки");
+    }
+
+    try {
+      Object value = parseValue(field, raw.substring(first + 1, last));
+      return new SearchCursor(field, value, Long.parseLong(raw.substring(last + 1)));
+    } catch (RuntimeException e) {
+      throw new IllegalArgumentException("Некорректный курсор", e);
+    }
+  }
+
+  private static Object parseValue(String field, String value) {
+    return switch (field) {
+      case "createdAt", "favoritedAt" -> Instant.parse(value);
+      case "price" -> Integer.valueOf(value);
+      default -> throw new IllegalArgumentException("Неподдерживаемое поле курсора: " + field);
+    };
+  }
+}
@@ -0,0 +1,19 @@
+package com.mipt.portal.repository;
+
+import java.util.List;
+
+/**
+ * Как поиск объявлений проверяет текст фильтра.
+ * rankedIds — готовый список id в порядке релевантности (только для сортировки по релевантности);
+ * fullText — условие по search_vector прямо в SQL, совместимое с любой сортировкой и keyset-курсором;
+ * иначе — LOWER(...) LIKE '%text%'.
+ */
+public record TextMatch(List<Long> rankedIds, boolean fullText) {
+
+  public static final TextMatch LIKE = new TextMatch(null, false);
+  public static final TextMatch FULL_TEXT = new TextMatch(null, true);
+
+  public static TextMatch ranked(List<Long> ids) {
+    return new TextMatch(ids, false);
+  }
+}
@@ -0,0 +1,46 @@
+package com.mipt.portal.repository;
+
+import com.mipt.portal.dto.FavoriteAdDto;
+import com.mipt.portal.entity.UserFavorite;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface UserFavoriteRepository extends JpaRepository<UserFavorite, UserFavorite.Key> {
+
+    /**
+     * Идемпотентное добавление: 1 — строка вставлена, 0 — уже была в избранном.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_favorites (user_id, ad_id, created_at) VALUES (:userId, :adId, CURRENT_TIMESTAMP) "
+        + "ON CONFLICT (user_id, ad_id) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId, @Param("adId") Long adId);
+
+    @Modifying
+    @Query("DELETE FROM UserFavorite f WHERE f.id.userId = :userId AND f.id.adId = :adId")
+    int deleteOne(@Param("userId") Long userId, @Param("adId") Long adId);
+
+    @Query("SELECT f.id.adId FROM UserFavorite f WHERE f.id.userId = :userId ORDER BY f.createdAt DESC, f.id.adId DESC")
+    List<Long> findAdIdsByUserId(@Param("userId") Long userId);
+
+    // Лента избранного одним запросом: избранное JOIN ads, проекция без фото и описания
+    String FEED_SELECT = "SELECT new com.mipt.portal.dto.FavoriteAdDto(a.id, a.title, a.category, a.subcategory, "
+        + "a.condition, a.price, a.location, a.authorId, a.status, a.viewCount, a.createdAt, f.createdAt) "
+        + "FROM UserFavorite f JOIN Announcement a ON a.id = f.id.adId WHERE f.id.userId = :userId";
+    String FEED_ORDER = " ORDER BY f.createdAt DESC, f.id.adId DESC";
+
+    @Query(FEED_SELECT + FEED_ORDER)
+    List<FavoriteAdDto> findFeedFirstPage(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(FEED_SELECT + " AND (f.createdAt < :createdAt OR (f.createdAt = :createdAt AND f.id.adId < :adId))"
+        + FEED_ORDER)
+    List<FavoriteAdDto> findFeedAfter(@Param("userId") Long userId, @Param("createdAt") Instant createdAt,
+                                      @Param("adId") Long adId, Pageable pageable);
+}
@@ -1,9 +1,14 @@
 package com.mipt.portal.repository;
 
+import com.mipt.portal.dto.UserSummaryDto;
 import com.mipt.portal.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -14,4 +19,8 @@ public interface UserRepository extends JpaRepository<User, Long> {
   boolean existsByEmail(String email);
 
   Optional<User> findByTelegramChatId(Long telegramChatId);
-}
\ No newline at end of file
+
+  @Query("SELECT new com.mipt.portal.dto.UserSummaryDto(u.id, u.name, u.rating, u.email) "
+      + "FROM User u WHERE u.id IN :ids")
+  List<UserSummaryDto> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -4,17 +4,24 @@ import com.mipt.portal.entity.Comment;
 import com.mipt.portal.entity.User;
 import com.mipt.portal.dto.AnnouncementCreateDto;
 import com.mipt.portal.dto.AnnouncementFilterDto;
+import com.mipt.portal.dto.AnnouncementPageDto;
+import com.mipt.portal.dto.AnnouncementSearchResultDto;
 import com.mipt.portal.entity.Announcement;
 import com.mipt.portal.enums.AdStatus;
 import com.mipt.portal.enums.Category;
 import com.mipt.portal.enums.Condition;
 import com.mipt.portal.enums.AdminActionType;
 import com.mipt.portal.enums.AuditTargetType;
+import com.mipt.portal.enums.AnnouncementSortField;
+import com.mipt.portal.enums.TextSearchBackend;
+import com.mipt.portal.repository.AnnouncementPhotoRepository;
 import com.mipt.portal.repository.AnnouncementRepository;
+import com.mipt.portal.repository.TextMatch;
 import com.mipt.portal.repository.UserRepository;
 import com.mipt.portal.dto.kafka.KafkaEventPayloads;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -28,7 +35,13 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class AnnouncementService {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_TEXT_MATCHES = 1000;
+    private static final String UNKNOWN_AUTHOR = "Неизвестный пользователь";
+
     private final AnnouncementRepository repository;
+    private final AnnouncementPhotoRepository photoRepository;
     private final UserRepository userRepository;
     private final ModerationHistoryService moderationHistoryService;
     private final AuditService auditService;
@@ -36,6 +49,12 @@ public class AnnouncementService {
     private final CommentService commentService;
     private final KafkaMessageService kafkaMessageService;
     private final EmailService emailService;
+    private final ElasticSearchService elasticSearchService;
+    private final ViewCounterService viewCounterService;
+    private final UserSummaryService userSummaryService;
+
+    @Value("${app.search.text-backend:ELASTICSEARCH}")
+    private TextSearchBackend textSearchBackend = TextSearchBackend.ELASTICSEARCH;
 
     @Transactional
     public Announcement create(AnnouncementCreateDto dto) {
@@ -66,10 +85,6 @@ public class AnnouncementService {
             ad.setCondition(Condition.USED);
         }
 
-        if (dto.getPhotoUrls() != null) {
-            ad.setPhotoUrls(dto.getPhotoUrls());
-        }
-
         ad.setStatus(AdStatus.DRAFT);
         ad.setCreatedAt(Instant.now());
         ad.setUpdatedAt(Instant.now());
@@ -105,9 +120,69 @@ public class AnnouncementService {
         return repository.findAllById(ids);
     }
 
-    @Transactional(readOnly = true)
-    public List<Announcement> searchApproved(AnnouncementFilterDto filter, String sortBy, String direction) {
-        return repository.searchApproved(filter, sortBy, direction);
+    // Без общей транзакции: поиск id в ES/FTS идёт до SQL и его ошибка не должна ронять основной запрос
+    public List<Announcement> searchApproved(AnnouncementFilterDto filter, AnnouncementSortField sortField,
+                                             String direction) {
+        if (sortField == AnnouncementSortField.RELEVANCE) {
+            return repository.searchApproved(filter, sortField, direction, rankedTextMatch(filter));
+        }
+        TextMatch textMatch = textMatch(filter);
+        try {
+            return repository.searchApproved(filter, sortField, direction, textMatch);
+        } catch (RuntimeException e) {
+            if (!textMatch.fullText()) {
+                throw e;
+            }
+            log.warn("Full-text search in Postgres failed, falling back to LIKE: {}", e.getMessage());
+            return repository.searchApproved(filter, sortField, direction, TextMatch.LIKE);
+        }
+    }
+
+    public AnnouncementPageDto searchApprovedPage(AnnouncementFilterDto filter, AnnouncementSortField sortField, String direction,
+                                                  String cursor, Integer limit) {
+        int pageSize = (limit == null || limit <= 0) ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+        TextMatch textMatch = textMatch(filter);
+        try {
+            return repository.searchApprovedPage(filter, sortField, direction, cursor, pageSize, textMatch);
+        } catch (RuntimeException e) {
+            if (!textMatch.fullText()) {
+                throw e;
+            }
+            log.warn("Full-text search in Postgres failed, falling back to LIKE: {}", e.getMessage());
+            return repository.searchApprovedPage(filter, sortField, direction, cursor, pageSize, TextMatch.LIKE);
+        }
+    }
+
+    public AnnouncementSearchResultDto searchFullText(AnnouncementFilterDto filter, String cursor, Integer limit) {
+        int pageSize = (limit == null || limit <= 0) ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+        return elasticSearchService.search(filter, cursor, pageSize);
+    }
+
+    // Текстовое условие внутри SQL: фильтры, сортировка и keyset-курсор применяются ко всем совпадениям
+    private TextMatch textMatch(AnnouncementFilterDto filter) {
+        if (filter.getText() == null || filter.getText().isBlank() || textSearchBackend == TextSearchBackend.LIKE) {
+            return TextMatch.LIKE;
+        }
+        return TextMatch.FULL_TEXT;
+    }
+
+    // Первые MAX_TEXT_MATCHES id по релевантности — только для сортировки RELEVANCE, где дальше них выдача не нужна
+    private TextMatch rankedTextMatch(AnnouncementFilterDto filter) {
+        if (filter.getText() == null || filter.getText().isBlank() || textSearchBackend == TextSearchBackend.LIKE) {
+            return TextMatch.LIKE;
+        }
+        if (textSearchBackend == TextSearchBackend.ELASTICSEARCH) {
+            Optional<List<Long>> ids = elasticSearchService.findMatchingIds(filter, MAX_TEXT_MATCHES);
+            if (ids.isPresent()) {
+                return TextMatch.ranked(ids.get());
+            }
+        }
+        try {
+            return TextMatch.ranked(repository.findTextMatchIds(filter.getText().trim(), MAX_TEXT_MATCHES));
+        } catch (RuntimeException e) {
+            log.warn("Full-text search in Postgres failed, falling back to LIKE: {}", e.getMessage());
+            return TextMatch.LIKE;
+        }
     }
 
     @Transactional(readOnly = true)
@@ -146,7 +221,7 @@ public class AnnouncementService {
             auditService.logAdminAction(moderatorId, null, AdminActionType.AD_STATUS_CHANGE, AuditTargetType.ANNOUNCEMENT, id,
                 "Статус " + previous + " -> " + newStatus + (reason != null ? (". Причина: " + reason) : ""));
             log.info("Status changed for Ad ID: {}. New status: {}", id, newStatus);
-            userRepository.findById(ad.getAuthorId()).map(User::getEmail).ifPresent(authorEmail -> {
+            userSummaryService.getEmail(ad.getAuthorId()).ifPresent(authorEmail -> {
                 if (newStatus == AdStatus.ACTIVE) {
                     emailService.sendAdApproved(authorEmail, ad.getTitle());
                 } else if (newStatus == AdStatus.REJECTED) {
@@ -182,21 +257,31 @@ public class AnnouncementService {
         return repository.findById(id).orElse(null);
     }
 
-    @Transactional(readOnly = true)
+    // Справочники кэшируются в CategoryService: без транзакции попадание в кэш не занимает соединение
     public List<Map<String, Object>> getAllCategories() {
         return categoryService.getAllCategories();
     }
 
-    @Transactional(readOnly = true)
+    public byte[] getAllCategoriesJson() {
+        return categoryService.getAllCategoriesJson();
+    }
+
     public List<Map<String, Object>> getSubcategoriesByCategory(Long categoryId) {
         return categoryService.getSubcategoriesByCategory(categoryId);
     }
 
-    @Transactional(readOnly = true)
+    public byte[] getSubcategoriesByCategoryJson(Long categoryId) {
+        return categoryService.getSubcategoriesByCategoryJson(categoryId);
+    }
+
     public List<Map<String, Object>> getTagsWithValues() {
         return categoryService.getTagsWithValues();
     }
 
+    public byte[] getTagsWithValuesJson() {
+        return categoryService.getTagsWithValuesJson();
+    }
+
     @Transactional(readOnly = true)
     public List<Map<String, Object>> getTagsForAd(Long adId) {
         return categoryService.getTagsForAd(adId);
@@ -217,20 +302,13 @@ public class AnnouncementService {
         return commentService.getCommentsByAdId(adId);
     }
 
-    @Transactional(readOnly = true)
     public String getAuthorName(Long authorId) {
-        return userRepository.findById(authorId)
-                .map(User::getName)
-                .orElse("Неизвестный пользователь");
+        return userSummaryService.getName(authorId, UNKNOWN_AUTHOR);
     }
 
     @Transactional(readOnly = true)
     public int getPhotoCount(Long adId) {
-        Announcement ad = findById(adId);
-        if (ad == null) {
-            return 0;
-        }
-        return (ad.getPhoto() != null && ad.getPhoto().length > 0) ? 1 : 0;
+        return (int) photoRepository.countByAdId(adId);
     }
 
     @Transactional
@@ -246,12 +324,8 @@ public class AnnouncementService {
         return saved;
     }
 
-    @Transactional
+    // Запись в БД отложена: ViewCounterService сбрасывает накопленные просмотры пачкой
     public void incrementViewCount(Long id) {
-        log.info("Request to increment view count for adId={}", id);
-        int updated = repository.incrementViews(id);
-        if (updated == 0) {
-            log.warn("Failed to increment view count. Announcement with id={} not found", id);
-        }
+        viewCounterService.record(id);
     }
 }
@@ -1,13 +1,12 @@
 package com.mipt.portal.service;
 
+import com.mipt.portal.dto.UserSummaryDto;
 import com.mipt.portal.dto.kafka.KafkaEventPayloads;
 import com.mipt.portal.entity.Announcement;
 import com.mipt.portal.entity.Booking;
-import com.mipt.portal.entity.User;
 import com.mipt.portal.enums.AdStatus;
 import com.mipt.portal.repository.AnnouncementRepository;
 import com.mipt.portal.repository.BookingRepository;
-import com.mipt.portal.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -17,6 +16,9 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -26,15 +28,19 @@ public class BookingService {
     private final BookingRepository bookingRepository;
     private final AnnouncementRepository announcementRepository;
     private final KafkaMessageService kafkaMessageService;
-    private final UserRepository userRepository;
+    private final UserSummaryService userSummaryService;
     private final EmailService emailService;
 
     @Transactional(readOnly = true)
     public List<Announcement> getBookedAdsForBuyer(Long buyerId) {
         log.info("Fetching all booked announcements for buyerId={}", buyerId);
         List<Booking> bookings = bookingRepository.findAllByBuyerIdAndCancelledAtIsNullAndConfirmedAtIsNull(buyerId);
+        // Одним запросом вместо findById на каждую бронь; порядок броней сохраняем
+        Map<Long, Announcement> ads = announcementRepository.findAllById(
+                bookings.stream().map(Booking::getAnnouncementId).toList()).stream()
+            .collect(Collectors.toMap(Announcement::getId, Function.identity()));
         return bookings.stream()
-            .map(booking -> announcementRepository.findById(booking.getAnnouncementId()).orElse(null))
+            .map(booking -> ads.get(booking.getAnnouncementId()))
             .filter(java.util.Objects::nonNull)
             .toList();
     }
@@ -69,11 +75,12 @@ public class BookingService {
 
         log.info("Successfully booked adId={} with bookingId={}", adId, savedBooking.getId());
 
-        userRepository.findById(buyerId).map(User::getEmail).ifPresent(buyerEmail ->
-            userRepository.findById(ad.getAuthorId()).map(User::getEmail).ifPresent(sellerEmail ->
-                emailService.sendBookingCreated(buyerEmail, sellerEmail, ad.getTitle(), adId)
-            )
-        );
+        Map<Long, UserSummaryDto> parties = userSummaryService.getSummaries(List.of(buyerId, ad.getAuthorId()));
+        UserSummaryDto buyer = parties.get(buyerId);
+        UserSummaryDto seller = parties.get(ad.getAuthorId());
+        if (buyer != null && seller != null) {
+            emailService.sendBookingCreated(buyer.getEmail(), seller.getEmail(), ad.getTitle(), adId);
+        }
 
         kafkaMessageService.sendBookingEvent(
                 "booking.created",
@@ -111,7 +118,7 @@ public class BookingService {
         bookingRepository.findByAnnouncementIdAndCancelledAtIsNullAndConfirmedAtIsNull(adId).ifPresent(booking -> {
             booking.setConfirmedAt(Instant.now());
             bookingRepository.save(booking);
-            userRepository.findById(booking.getBuyerId()).map(User::getEmail).ifPresent(buyerEmail ->
+            userSummaryService.getEmail(booking.getBuyerId()).ifPresent(buyerEmail ->
                 emailService.sendBookingConfirmed(buyerEmail, ad.getTitle())
             );
         });
@@ -139,7 +146,7 @@ public class BookingService {
         bookingRepository.save(booking);
 
         boolean cancelledByBuyer = booking.getBuyerId().equals(userId);
-        userRepository.findById(booking.getBuyerId()).map(User::getEmail).ifPresent(buyerEmail ->
+        userSummaryService.getEmail(booking.getBuyerId()).ifPresent(buyerEmail ->
             emailService.sendBookingCancelled(buyerEmail, ad.getTitle(), cancelledByBuyer)
         );
 
@@ -1,27 +1,65 @@
 package com.mipt.portal.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mipt.portal.infrastructure.cache.DictionaryCache;
 import com.mipt.portal.repository.CategoryRepository;
 import com.mipt.portal.repository.TagRepository;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Категории, подкатегории и теги. Справочники меняются редко, а читаются на каждой форме
+ * создания/редактирования, поэтому они отдаются из кэша; сбрасывается он при изменении
+ * сущностей (см. DictionaryChangeListener), вручную из админки или по TTL.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class CategoryService {
 
+  private static final String ALL = "all";
+
   private final CategoryRepository categoryRepository;
   private final TagRepository tagRepository;
 
+  private final DictionaryCache<String, List<Map<String, Object>>> categoriesCache;
+  private final DictionaryCache<Long, List<Map<String, Object>>> subcategoriesCache;
+  private final DictionaryCache<String, List<Map<String, Object>>> tagsCache;
+
+  public CategoryService(
+      CategoryRepository categoryRepository,
+      TagRepository tagRepository,
+      ObjectMapper objectMapper,
+      @Value("${app.cache.dictionaries.max-size:256}") int maxSize,
+      @Value("${app.cache.dictionaries.ttl:PT1H}") Duration ttl) {
+    this.categoryRepository = categoryRepository;
+    this.tagRepository = tagRepository;
+    this.categoriesCache = new DictionaryCache<>("categories", 1, ttl, objectMapper);
+    this.subcategoriesCache = new DictionaryCache<>("subcategories", maxSize, ttl, objectMapper);
+    this.tagsCache = new DictionaryCache<>("tags", 1, ttl, objectMapper);
+  }
+
   public List<Map<String, Object>> getAllCategories() {
-    return categoryRepository.getAllCategories();
+    return categoriesCache.get(ALL, this::loadCategories);
+  }
+
+  public byte[] getAllCategoriesJson() {
+    return categoriesCache.getJson(ALL, this::loadCategories);
   }
 
   public List<Map<String, Object>> getSubcategoriesByCategory(Long categoryId) {
-    return categoryRepository.getSubcategoriesByCategory(categoryId);
+    return subcategoriesCache.get(categoryId, () -> loadSubcategories(categoryId));
+  }
+
+  public byte[] getSubcategoriesByCategoryJson(Long categoryId) {
+    return subcategoriesCache.getJson(categoryId, () -> loadSubcategories(categoryId));
   }
 
   public boolean isServiceSubcategory(Long subcategoryId) {
@@ -38,11 +76,16 @@ public class CategoryService {
 
 
   public List<Map<String, Object>> getTagsWithValues() {
-    return tagRepository.getTagsWithValues();
+    return tagsCache.get(ALL, this::loadTags);
+  }
+
+  public byte[] getTagsWithValuesJson() {
+    return tagsCache.getJson(ALL, this::loadTags);
   }
 
   public List<Map<String, Object>> getAvailableTagsForSubcategory(String subcategoryName) {
-    return tagRepository.getAvailableTagsForSubcategory(subcategoryName);
+    // Набор тегов пока общий для всех подкатегорий
+    return getTagsWithValues();
   }
 
   public List<Map<String, Object>> getTagsForAd(Long adId) {
@@ -52,4 +95,61 @@ public class CategoryService {
   public void saveAdTags(Long adId, List<Map<String, Object>> tagSelections) {
     tagRepository.saveAdTags(adId, tagSelections);
   }
-}
\ No newline at end of file
+
+  /**
+   * Сбрасывает кэш справочников. Внутри транзакции сброс повторяется после коммита,
+   * иначе параллельный запрос успел бы закэшировать данные до изменения.
+   */
+  public void invalidateDictionaries() {
+    invalidateNow();
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          invalidateNow();
+        }
+      });
+    }
+  }
+
+  public List<Map<String, Object>> getCacheStats() {
+    return List.of(categoriesCache.stats(), subcategoriesCache.stats(), tagsCache.stats());
+  }
+
+  private void invalidateNow() {
+    categoriesCache.invalidateAll();
+    subcategoriesCache.invalidateAll();
+    tagsCache.invalidateAll();
+    log.info("Dictionary caches invalidated");
+  }
+
+  private List<Map<String, Object>> loadCategories() {
+    return freeze(categoryRepository.getAllCategories());
+  }
+
+  private List<Map<String, Object>> loadSubcategories(Long categoryId) {
+    return freeze(categoryRepository.getSubcategoriesByCategory(categoryId));
+  }
+
+  private List<Map<String, Object>> loadTags() {
+    return freeze(tagRepository.getTagsWithValues());
+  }
+
+  // Закэшированные значения общие для всех запросов — отдаём их только для чтения
+  @SuppressWarnings("unchecked")
+  private static List<Map<String, Object>> freeze(List<Map<String, Object>> rows) {
+    return (List<Map<String, Object>>) freezeValue(rows);
+  }
+
+  private static Object freezeValue(Object value) {
+    if (value instanceof Map<?, ?> map) {
+      Map<Object, Object> copy = new LinkedHashMap<>();
+      map.forEach((key, nested) -> copy.put(key, freezeValue(nested)));
+      return Collections.unmodifiableMap(copy);
+    }
+    if (value instanceof List<?> list) {
+      return list.stream().map(CategoryService::freezeValue).toList();
+    }
+    return value;
+  }
+}
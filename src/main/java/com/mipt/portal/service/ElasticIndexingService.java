@@ -0,0 +1,289 @@
+package com.mipt.portal.service;
+
+import com.mipt.portal.entity.Announcement;
+import com.mipt.portal.entity.AnnouncementDocument;
+import com.mipt.portal.enums.AdStatus;
+import com.mipt.portal.repository.AnnouncementRepository;
+import java.util.ArrayList;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.index.AliasAction;
+import org.springframework.data.elasticsearch.core.index.AliasActionParameters;
+import org.springframework.data.elasticsearch.core.index.AliasActions;
+import org.springframework.data.elasticsearch.core.index.AliasData;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Поддерживает индекс Elasticsearch в актуальном состоянии без полной переиндексации.
+ * Каждая пачка событий announcement.* записывается одним bulk-запросом до подтверждения offset'ов,
+ * поэтому изменения не теряются ни при падении процесса, ни при недоступности ES.
+ * Полная перестройка пишет в новый версионированный индекс и атомарно переключает на него алиас.
+ */
+@Slf4j
+@Service
+public class ElasticIndexingService {
+
+  private final ElasticsearchOperations elasticsearchOperations;
+  private final AnnouncementRepository announcementRepository;
+  private final KafkaMessageService kafkaMessageService;
+  private final long retryBackoffMs;
+  private final int rebuildBatchSize;
+
+  private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+  private final Set<Long> touchedDuringRebuild = ConcurrentHashMap.newKeySet();
+  private final ReentrantLock flushLock = new ReentrantLock();
+  private final ReentrantLock rebuildLock = new ReentrantLock();
+  private volatile String rebuildTarget;
+  private volatile boolean indexReady;
+
+  public ElasticIndexingService(
+      ElasticsearchOperations elasticsearchOperations,
+      AnnouncementRepository announcementRepository,
+      KafkaMessageService kafkaMessageService,
+      @Value("${app.search.elastic.indexer.retry-backoff-ms:5000}") long retryBackoffMs,
+      @Value("${app.search.elastic.indexer.rebuild-batch-size:500}") int rebuildBatchSize) {
+    this.elasticsearchOperations = elasticsearchOperations;
+    this.announcementRepository = announcementRepository;
+    this.kafkaMessageService = kafkaMessageService;
+    this.retryBackoffMs = retryBackoffMs;
+    this.rebuildBatchSize = rebuildBatchSize;
+  }
+
+  @Async
+  @EventListener(ApplicationReadyEvent.class)
+  public void ensureIndex() {
+    try {
+      ensureIndexExists();
+    } catch (Exception e) {
+      log.warn("Elasticsearch index check skipped, will retry before the first write: {}", e.getMessage());
+    }
+  }
+
+  // Индекс с нашими анализаторами создаётся только перестройкой — без неё первая запись создала бы индекс
+  // с динамическим маппингом (category и status стали бы text). Поэтому проверка повторяется перед каждой
+  // записью, пока не пройдёт: если ES был недоступен при старте, пачка упадёт и придёт заново
+  private void ensureIndexExists() {
+    if (indexReady) {
+      return;
+    }
+    if (elasticsearchOperations.indexOps(IndexCoordinates.of(aliasName())).exists()) {
+      indexReady = true;
+      return;
+    }
+    rebuild();
+  }
+
+  // Пачка подтверждается только после записи в индекс; при ошибке она не подтверждается
+  // и после паузы приходит заново, так что недоступность ES не теряет изменения
+  @KafkaListener(
+      topics = "${app.kafka.topic.announcement:portal.announcement.events}",
+      groupId = "portal-es-indexer",
+      containerFactory = "batchListenerContainerFactory")
+  public void onAnnouncementEvents(List<ConsumerRecord<String, byte[]>> records, Acknowledgment ack) {
+    // Повторные события по одному объявлению внутри пачки схлопываются
+    Set<Long> ids = new LinkedHashSet<>();
+    for (ConsumerRecord<String, byte[]> record : records) {
+      Long adId = kafkaMessageService.readAdId(record);
+      if (adId == null) {
+        log.warn("Announcement event without ad id: {}", kafkaMessageService.describe(record.value()));
+        continue;
+      }
+      ids.add(adId);
+    }
+    if (!ids.isEmpty()) {
+      flushLock.lock();
+      try {
+        index(ids);
+      } catch (Exception e) {
+        log.warn("Failed to index {} announcements, batch will be redelivered: {}", ids.size(), e.getMessage());
+        // Пакетный Acknowledgment поддерживает только nack(index, sleep): 0 — перечитать всю пачку
+        ack.nack(0, Duration.ofMillis(retryBackoffMs));
+        return;
+      } finally {
+        flushLock.unlock();
+      }
+    }
+    ack.acknowledge();
+  }
+
+  // Дозаписывает id, отложенные перестройкой индекса
+  @Scheduled(fixedDelayString = "${app.search.elastic.indexer.flush-interval-ms:1000}")
+  public void flush() {
+    if (pending.isEmpty() || !flushLock.tryLock()) {
+      return;
+    }
+    try {
+      List<Long> ids = drainPending();
+      try {
+        index(ids);
+      } catch (Exception e) {
+        // ES недоступен — вернём id в очередь, следующий сброс повторит попытку
+        pending.addAll(ids);
+        log.warn("Failed to flush {} announcements to Elasticsearch: {}", ids.size(), e.getMessage());
+      }
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  // Вызывается под flushLock
+  private void index(Collection<Long> ids) {
+    ensureIndexExists();
+    apply(ids, aliasName());
+    String target = rebuildTarget;
+    if (target != null) {
+      apply(ids, target);
+      touchedDuringRebuild.addAll(ids);
+    }
+  }
+
+  /**
+   * Полная перестройка: keyset-батчи по id в новый индекс announcements_v{timestamp},
+   * затем одним запросом алиас announcements переводится на него, а старые индексы удаляются.
+   */
+  public int rebuild() {
+    if (!rebuildLock.tryLock()) {
+      throw new IllegalStateException("Переиндексация уже выполняется");
+    }
+    try {
+      String alias = aliasName();
+      String target = alias + "_v" + System.currentTimeMillis();
+      IndexOperations targetOps = elasticsearchOperations.indexOps(IndexCoordinates.of(target));
+      IndexOperations documentOps = elasticsearchOperations.indexOps(AnnouncementDocument.class);
+      targetOps.create(documentOps.createSettings(), documentOps.createMapping());
+
+      touchedDuringRebuild.clear();
+      rebuildTarget = target;
+      int total = 0;
+      try {
+        long lastId = 0;
+        while (true) {
+          List<Announcement> batch = announcementRepository.findByStatusAndIdGreaterThanOrderByIdAsc(
+              AdStatus.ACTIVE, lastId, PageRequest.of(0, rebuildBatchSize));
+          if (batch.isEmpty()) {
+            break;
+          }
+          elasticsearchOperations.bulkIndex(toIndexQueries(batch), IndexCoordinates.of(target));
+          total += batch.size();
+          lastId = batch.get(batch.size() - 1).getId();
+        }
+        targetOps.refresh();
+        swapAlias(alias, target);
+        indexReady = true;
+      } catch (RuntimeException e) {
+        rebuildTarget = null;
+        targetOps.delete();
+        throw e;
+      }
+      rebuildTarget = null;
+
+      // Батч мог прочитать объявление до его изменения — переотправляем всё, что менялось во время перестройки
+      pending.addAll(touchedDuringRebuild);
+      touchedDuringRebuild.clear();
+      flush();
+
+      log.info("Rebuilt Elasticsearch index {} with {} active announcements", target, total);
+      return total;
+    } finally {
+      rebuildLock.unlock();
+    }
+  }
+
+  private void apply(Collection<Long> ids, String indexName) {
+    IndexCoordinates index = IndexCoordinates.of(indexName);
+    List<Announcement> active = new ArrayList<>();
+    Set<Long> toDelete = new HashSet<>(ids);
+    for (Announcement ad : announcementRepository.findAllById(ids)) {
+      if (ad.getStatus() == AdStatus.ACTIVE) {
+        active.add(ad);
+        toDelete.remove(ad.getId());
+      }
+    }
+
+    if (!active.isEmpty()) {
+      elasticsearchOperations.bulkIndex(toIndexQueries(active), index);
+    }
+    if (!toDelete.isEmpty()) {
+      List<String> deleteIds = toDelete.stream().map(String::valueOf).toList();
+      elasticsearchOperations.delete(elasticsearchOperations.idsQuery(deleteIds), AnnouncementDocument.class, index);
+    }
+    log.debug("Elasticsearch {}: upserted {}, deleted {}", indexName, active.size(), toDelete.size());
+  }
+
+  private void swapAlias(String alias, String target) {
+    IndexOperations aliasOps = elasticsearchOperations.indexOps(IndexCoordinates.of(alias));
+    Set<String> previousIndices = currentIndicesFor(aliasOps, alias);
+
+    AliasActions actions = new AliasActions();
+    if (previousIndices.isEmpty() && aliasOps.exists()) {
+      // Индекс из старого reindexAll называется так же, как алиас, — удаляем его в том же запросе
+      actions.add(new AliasAction.RemoveIndex(AliasActionParameters.builder().withIndices(alias).build()));
+    }
+    for (String previous : previousIndices) {
+      actions.add(new AliasAction.Remove(AliasActionParameters.builder()
+          .withIndices(previous).withAliases(alias).build()));
+    }
+    actions.add(new AliasAction.Add(AliasActionParameters.builder()
+        .withIndices(target).withAliases(alias).build()));
+    aliasOps.alias(actions);
+
+    for (String previous : previousIndices) {
+      elasticsearchOperations.indexOps(IndexCoordinates.of(previous)).delete();
+    }
+  }
+
+  private Set<String> currentIndicesFor(IndexOperations aliasOps, String alias) {
+    try {
+      Map<String, Set<AliasData>> aliases = aliasOps.getAliases(alias);
+      return new HashSet<>(aliases.keySet());
+    } catch (Exception e) {
+      return Set.of();
+    }
+  }
+
+  private List<IndexQuery> toIndexQueries(List<Announcement> ads) {
+    return ads.stream()
+        .map(ad -> new IndexQueryBuilder()
+            .withId(String.valueOf(ad.getId()))
+            .withObject(AnnouncementDocument.from(ad))
+            .build())
+        .toList();
+  }
+
+  private List<Long> drainPending() {
+    List<Long> ids = new ArrayList<>();
+    Iterator<Long> iterator = pending.iterator();
+    while (iterator.hasNext()) {
+      ids.add(iterator.next());
+      iterator.remove();
+    }
+    return ids;
+  }
+
+  private String aliasName() {
+    return elasticsearchOperations.getIndexCoordinatesFor(AnnouncementDocument.class).getIndexName();
+  }
+}
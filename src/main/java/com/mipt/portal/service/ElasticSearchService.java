@@ -1,34 +1,67 @@
 package com.mipt.portal.service;
 
-import com.mipt.portal.entity.Announcement;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.SortOptions;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.json.JsonData;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mipt.portal.dto.AnnouncementFilterDto;
+import com.mipt.portal.dto.AnnouncementSearchResultDto;
+import com.mipt.portal.dto.AnnouncementSummaryDto;
+import com.mipt.portal.entity.AnnouncementDocument;
 import com.mipt.portal.enums.AdStatus;
-import com.mipt.portal.repository.AnnouncementRepository;
-import lombok.RequiredArgsConstructor;
+import com.mipt.portal.enums.AnnouncementSortField;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
 import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
-import org.springframework.data.elasticsearch.core.IndexOperations;
 import org.springframework.data.elasticsearch.core.SearchHit;
 import org.springframework.data.elasticsearch.core.SearchHits;
 import org.springframework.data.elasticsearch.core.query.Criteria;
 import org.springframework.data.elasticsearch.core.query.CriteriaQuery;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilter;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class ElasticSearchService {
 
+  private static final String CATEGORY_FACET = "categories";
+  private static final String PRICE_FACET = "prices";
+
   private final ElasticsearchOperations elasticsearchOperations;
-  private final AnnouncementRepository announcementRepository;
+  private final ObjectMapper objectMapper;
+  private final int priceHistogramInterval;
+
+  public ElasticSearchService(
+      ElasticsearchOperations elasticsearchOperations,
+      ObjectMapper objectMapper,
+      @Value("${app.search.elastic.price-histogram-interval:1000}") int priceHistogramInterval) {
+    this.elasticsearchOperations = elasticsearchOperations;
+    this.objectMapper = objectMapper;
+    this.priceHistogramInterval = priceHistogramInterval;
+  }
 
   /**
    * Fuzzy-поиск с опечатками.
    * Elasticsearch сам считает расстояние Левенштейна между запросом и полями title/description.
    */
-  public List<Announcement> searchWithTypos(String queryText) {
+  public List<AnnouncementSummaryDto> searchWithTypos(String queryText) {
     log.info("Starting Elasticsearch fuzzy search for query: '{}'", queryText);
 
     if (queryText == null || queryText.trim().isEmpty()) {
@@ -40,43 +73,176 @@ public class ElasticSearchService {
       .or("description").fuzzy(queryText);
 
     CriteriaQuery query = new CriteriaQuery(criteria);
-    SearchHits<Announcement> searchHits = elasticsearchOperations.search(query, Announcement.class);
+    SearchHits<AnnouncementDocument> searchHits = elasticsearchOperations.search(query, AnnouncementDocument.class);
 
     log.info("Elasticsearch found {} results for query: '{}'", searchHits.getTotalHits(), queryText);
 
     return searchHits.getSearchHits().stream()
-      .map(SearchHit::getContent)
+      .map(hit -> hit.getContent().toSummary())
       .toList();
   }
 
   /**
-   * Batch-индексация: берёт все ACTIVE-объявления из Postgres
-   * и заливает их в Elasticsearch.
-   * Это НАША ручная синхронизация
+   * Страница поиска: нечёткий текст в query-контексте, остальные условия — в filter-контексте
+   * (не влияют на score и кешируются Elasticsearch). Следующая страница — через search_after.
+   */
+  public AnnouncementSearchResultDto search(AnnouncementFilterDto filter, String cursor, int limit) {
+    boolean hasText = hasText(filter);
+    List<SortOptions> sort = sortFor(filter, hasText);
+    List<Object> searchAfter = (cursor != null && !cursor.isBlank()) ? decodeCursor(cursor, sort.size()) : null;
+
+    NativeQueryBuilder builder = NativeQuery.builder()
+        .withQuery(buildQuery(filter))
+        .withSort(sort)
+        .withPageable(PageRequest.of(0, limit + 1));
+    if (searchAfter != null) {
+      builder.withSearchAfter(searchAfter);
+    } else {
+      builder.withAggregation(CATEGORY_FACET, Aggregation.of(a -> a.terms(t -> t.field("category").size(50))))
+          .withAggregation(PRICE_FACET, Aggregation.of(a -> a.histogram(h -> h.field("price")
+              .interval((double) priceHistogramInterval)
+              .minDocCount(1))));
+    }
+
+    SearchHits<AnnouncementDocument> hits = elasticsearchOperations.search(builder.build(), AnnouncementDocument.class);
+    List<SearchHit<AnnouncementDocument>> rows = hits.getSearchHits();
+    boolean hasMore = rows.size() > limit;
+    List<SearchHit<AnnouncementDocument>> page = hasMore ? rows.subList(0, limit) : rows;
+
+    String nextCursor = hasMore ? encodeCursor(page.get(page.size() - 1).getSortValues()) : null;
+    List<AnnouncementSummaryDto> items = page.stream().map(hit -> hit.getContent().toSummary()).toList();
+
+    Map<String, Long> categoryCounts = null;
+    Map<Integer, Long> priceHistogram = null;
+    if (searchAfter == null && hits.getAggregations() instanceof ElasticsearchAggregations aggregations) {
+      categoryCounts = categoryCounts(aggregations);
+      priceHistogram = priceHistogram(aggregations);
+    }
+    return new AnnouncementSearchResultDto(items, nextCursor, hasMore, hits.getTotalHits(), categoryCounts, priceHistogram);
+  }
+
+  /**
+   * Id объявлений, подходящих под текст и фильтры, — для SQL-поиска вместо LIKE '%text%'.
+   * Пусто, если Elasticsearch недоступен: тогда вызывающий откатывается на SQL.
    */
-  @Transactional(readOnly = true)
-  public int reindexAll() {
-    log.info("Starting full reindex from Postgres to Elasticsearch...");
-
-    IndexOperations indexOps = elasticsearchOperations.indexOps(Announcement.class);
-    if (indexOps.exists()) {
-      indexOps.delete();
-      log.info("Old index deleted");
+  public Optional<List<Long>> findMatchingIds(AnnouncementFilterDto filter, int maxResults) {
+    try {
+      NativeQuery query = NativeQuery.builder()
+          .withQuery(buildQuery(filter))
+          .withSourceFilter(new FetchSourceFilter(new String[] {"id"}, null))
+          .withPageable(PageRequest.of(0, maxResults))
+          .build();
+      List<Long> ids = elasticsearchOperations.search(query, AnnouncementDocument.class).getSearchHits().stream()
+          .map(hit -> Long.valueOf(hit.getId()))
+          .toList();
+      return Optional.of(ids);
+    } catch (Exception e) {
+      log.warn("Elasticsearch недоступен, текстовый поиск пойдёт через SQL: {}", e.getMessage());
+      return Optional.empty();
+    }
+  }
+
+  private Query buildQuery(AnnouncementFilterDto filter) {
+    List<Query> filters = new ArrayList<>();
+    filters.add(term("status", AdStatus.ACTIVE.name()));
+    if (filter.getCategory() != null) {
+      filters.add(term("category", filter.getCategory().name()));
+    }
+    if (filter.getSubcategory() != null && !filter.getSubcategory().isBlank()) {
+      filters.add(term("subcategory", filter.getSubcategory()));
+    }
+    if (filter.getCondition() != null) {
+      filters.add(term("condition", filter.getCondition().name()));
     }
-    indexOps.create();
-    indexOps.putMapping(indexOps.createMapping());
-    log.info("New index created with mapping");
+    if (filter.getMinPrice() != null || filter.getMaxPrice() != null) {
+      filters.add(Query.of(q -> q.range(r -> {
+        r.field("price");
+        if (filter.getMinPrice() != null) {
+          r.gte(JsonData.of(filter.getMinPrice()));
+        }
+        if (filter.getMaxPrice() != null) {
+          r.lte(JsonData.of(filter.getMaxPrice()));
+        }
+        return r;
+      })));
+    }
+    if (filter.getCreatedAfter() != null) {
+      filters.add(Query.of(q -> q.range(r -> r.field("createdAt")
+          .gte(JsonData.of(filter.getCreatedAfter().toEpochMilli())))));
+    }
+
+    Query text = hasText(filter)
+        ? Query.of(q -> q.multiMatch(m -> m.query(filter.getText())
+            .fields("title^2", "description")
+            .fuzziness("AUTO")))
+        : Query.of(q -> q.matchAll(m -> m));
+    return Query.of(q -> q.bool(b -> b.must(text).filter(filters)));
+  }
+
+  // Последний ключ сортировки — id, чтобы search_after однозначно продолжал выдачу
+  // sortBy разбирается так же, как в SQL-поиске: неизвестное значение — IllegalArgumentException (400).
+  // Как и в keyset-выдаче, поля без однозначного курсора сортируются по createdAt
+  private List<SortOptions> sortFor(AnnouncementFilterDto filter, boolean hasText) {
+    SortOrder order = "ASC".equalsIgnoreCase(filter.getSortDirection()) ? SortOrder.Asc : SortOrder.Desc;
+    String sortBy = filter.getSortBy();
+    AnnouncementSortField sortField = (sortBy == null || sortBy.isBlank())
+        ? (hasText ? AnnouncementSortField.RELEVANCE : AnnouncementSortField.CREATED_AT)
+        : AnnouncementSortField.fromParam(sortBy);
+    List<SortOptions> sort = new ArrayList<>();
+    if (hasText && sortField == AnnouncementSortField.RELEVANCE) {
+      sort.add(SortOptions.of(s -> s.score(sc -> sc.order(SortOrder.Desc))));
+    } else {
+      String field = sortField.isKeyset() ? sortField.getProperty() : AnnouncementSortField.CREATED_AT.getProperty();
+      sort.add(SortOptions.of(s -> s.field(f -> f.field(field).order(order))));
+    }
+    sort.add(SortOptions.of(s -> s.field(f -> f.field("id").order(SortOrder.Desc))));
+    return sort;
+  }
+
+  private Map<String, Long> categoryCounts(ElasticsearchAggregations aggregations) {
+    Map<String, Long> counts = new LinkedHashMap<>();
+    Aggregate aggregate = aggregations.get(CATEGORY_FACET).aggregation().getAggregate();
+    aggregate.sterms().buckets().array()
+        .forEach(bucket -> counts.put(bucket.key().stringValue(), bucket.docCount()));
+    return counts;
+  }
+
+  private Map<Integer, Long> priceHistogram(ElasticsearchAggregations aggregations) {
+    Map<Integer, Long> histogram = new LinkedHashMap<>();
+    Aggregate aggregate = aggregations.get(PRICE_FACET).aggregation().getAggregate();
+    aggregate.histogram().buckets().array()
+        .forEach(bucket -> histogram.put((int) bucket.key(), bucket.docCount()));
+    return histogram;
+  }
 
-    List<Announcement> activeAds = announcementRepository.findAllByStatus(AdStatus.ACTIVE);
+  private String encodeCursor(List<Object> sortValues) {
+    try {
+      byte[] json = objectMapper.writeValueAsBytes(sortValues);
+      return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+    } catch (Exception e) {
+      throw new IllegalStateException("Не удалось сформировать курсор", e);
+    }
+  }
 
-    if (activeAds.isEmpty()) {
-      log.warn("No ACTIVE announcements to index");
-      return 0;
+  private List<Object> decodeCursor(String cursor, int expectedSize) {
+    List<Object> values;
+    try {
+      byte[] json = Base64.getUrlDecoder().decode(cursor);
+      values = objectMapper.readValue(new String(json, StandardCharsets.UTF_8), new TypeReference<List<Object>>() { });
+    } catch (Exception e) {
+      throw new IllegalArgumentException("Некорректный курсор", e);
+    }
+    if (values.size() != expectedSize) {
+      throw new IllegalArgumentException("Курсор не соответствует сортировке");
     }
+    return values;
+  }
 
-    elasticsearchOperations.save(activeAds);
+  private static Query term(String field, String value) {
+    return Query.of(q -> q.term(t -> t.field(field).value(FieldValue.of(value))));
+  }
 
-    log.info("Reindexed {} active announcements into Elasticsearch", activeAds.size());
-    return activeAds.size();
+  private static boolean hasText(AnnouncementFilterDto filter) {
+    return filter.getText() != null && !filter.getText().isBlank();
   }
-}
\ No newline at end of file
+}
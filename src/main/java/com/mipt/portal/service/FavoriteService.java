@@ -0,0 +1,113 @@
+package com.mipt.portal.service;
+
+import com.mipt.portal.dto.FavoriteAdDto;
+import com.mipt.portal.dto.FavoritesPageDto;
+import com.mipt.portal.dto.kafka.KafkaEventPayloads;
+import com.mipt.portal.repository.AnnouncementRepository;
+import com.mipt.portal.repository.SearchCursor;
+import com.mipt.portal.repository.UserFavoriteRepository;
+import java.time.Instant;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Избранное пользователя в таблице user_favorites.
+ * Добавление и удаление — один INSERT ... ON CONFLICT DO NOTHING / DELETE на строку,
+ * лента читается постранично с keyset-курсором по времени добавления.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FavoriteService {
+
+  private static final int DEFAULT_PAGE_SIZE = 20;
+  private static final int MAX_PAGE_SIZE = 100;
+  private static final String CURSOR_FIELD = "favoritedAt";
+
+  private final UserFavoriteRepository favoriteRepository;
+  private final AnnouncementRepository announcementRepository;
+  private final KafkaMessageService kafkaMessageService;
+
+  @Transactional
+  public boolean toggle(Long userId, Long adId) {
+    if (favoriteRepository.deleteOne(userId, adId) > 0) {
+      publish(userId, adId, false);
+      return false;
+    }
+    add(userId, adId);
+    return true;
+  }
+
+  /**
+   * Возвращает true, если объявление добавлено сейчас, false — если уже было в избранном.
+   */
+  @Transactional
+  public boolean add(Long userId, Long adId) {
+    if (!announcementRepository.existsById(adId)) {
+      throw new IllegalArgumentException("Объявление не найдено: " + adId);
+    }
+    boolean inserted = favoriteRepository.insertIfAbsent(userId, adId) > 0;
+    if (inserted) {
+      publish(userId, adId, true);
+    }
+    return inserted;
+  }
+
+  /**
+   * Возвращает true, если объявление было в избранном.
+   */
+  @Transactional
+  public boolean remove(Long userId, Long adId) {
+    boolean removed = favoriteRepository.deleteOne(userId, adId) > 0;
+    if (removed) {
+      publish(userId, adId, false);
+    }
+    return removed;
+  }
+
+  @Transactional(readOnly = true)
+  public List<Long> getFavoriteIds(Long userId) {
+    return favoriteRepository.findAdIdsByUserId(userId);
+  }
+
+  /**
+   * Лента избранного, новые добавления сверху. Один запрос на страницу;
+   * у объявлений, снятых с публикации, отдаётся только отметка о недоступности.
+   */
+  @Transactional(readOnly = true)
+  public FavoritesPageDto getFeed(Long userId, String cursor, Integer limit) {
+    int pageSize = (limit == null || limit <= 0) ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+    PageRequest window = PageRequest.of(0, pageSize + 1);
+
+    List<FavoriteAdDto> rows;
+    if (cursor != null && !cursor.isBlank()) {
+      SearchCursor after = SearchCursor.decode(cursor, CURSOR_FIELD);
+      rows = favoriteRepository.findFeedAfter(userId, (Instant) after.sortValue(), after.id(), window);
+    } else {
+      rows = favoriteRepository.findFeedFirstPage(userId, window);
+    }
+
+    boolean hasMore = rows.size() > pageSize;
+    List<FavoriteAdDto> page = hasMore ? rows.subList(0, pageSize) : rows;
+
+    String nextCursor = null;
+    if (hasMore) {
+      FavoriteAdDto last = page.get(page.size() - 1);
+      nextCursor = new SearchCursor(CURSOR_FIELD, last.getFavoritedAt(), last.getId()).encode();
+    }
+    List<FavoriteAdDto> items = page.stream().map(FavoriteAdDto::withoutPayloadIfUnavailable).toList();
+    return new FavoritesPageDto(items, nextCursor, hasMore);
+  }
+
+  private void publish(Long userId, Long adId, boolean liked) {
+    kafkaMessageService.sendUserEvent(
+        "user.favorite.toggled",
+        String.valueOf(userId),
+        new KafkaEventPayloads.UserFavoriteToggled(userId, adId, liked)
+    );
+  }
+}
@@ -1,22 +1,30 @@
 package com.mipt.portal.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import java.time.Instant;
+import com.mipt.portal.entity.OutboxEvent;
+import com.mipt.portal.infrastructure.kafka.EventCodec;
+import com.mipt.portal.repository.OutboxEventRepository;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 public class KafkaMessageService {
 
   private static final Logger logger = LoggerFactory.getLogger(KafkaMessageService.class);
 
-  private final KafkaTemplate<String, String> kafkaTemplate;
-  private final ObjectMapper objectMapper;
+  private final OutboxEventRepository outboxRepository;
+  private final OutboxRelay outboxRelay;
+  private final EventCodec eventCodec;
   private final String auditTopic;
   private final String userTopic;
   private final String announcementTopic;
@@ -27,8 +35,9 @@ public class KafkaMessageService {
   private final String notificationTopic;
 
   public KafkaMessageService(
-      KafkaTemplate<String, String> kafkaTemplate,
-      ObjectMapper objectMapper,
+      OutboxEventRepository outboxRepository,
+      OutboxRelay outboxRelay,
+      EventCodec eventCodec,
       @Value("${app.kafka.topic.audit:portal.audit.events}") String auditTopic,
       @Value("${app.kafka.topic.user:portal.user.events}") String userTopic,
       @Value("${app.kafka.topic.announcement:portal.announcement.events}") String announcementTopic,
@@ -37,8 +46,9 @@ public class KafkaMessageService {
       @Value("${app.kafka.topic.comment:portal.comment.events}") String commentTopic,
       @Value("${app.kafka.topic.support:portal.support.events}") String supportTopic,
       @Value("${app.kafka.topic.notification:portal.notification.events}") String notificationTopic) {
-    this.kafkaTemplate = kafkaTemplate;
-    this.objectMapper = objectMapper;
+    this.outboxRepository = outboxRepository;
+    this.outboxRelay = outboxRelay;
+    this.eventCodec = eventCodec;
     this.auditTopic = auditTopic;
     this.userTopic = userTopic;
     this.announcementTopic = announcementTopic;
@@ -50,13 +60,22 @@ public class KafkaMessageService {
   }
 
   public void sendAuditEvent(String key, String payload) {
-    kafkaTemplate.send(auditTopic, key, payload);
+    enqueue(auditTopic, key, payload.getBytes(StandardCharsets.UTF_8));
   }
 
   public void sendUserEvent(String eventType, String key, Object payload) {
     sendEvent(userTopic, eventType, key, payload);
   }
 
+  /**
+   * Для вызывающих в read-only транзакции (вход пользователя): запись в outbox идёт
+   * в собственной транзакции и фиксируется сразу, независимо от внешней.
+   */
+  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  public void sendUserEventInNewTransaction(String eventType, String key, Object payload) {
+    sendEvent(userTopic, eventType, key, payload);
+  }
+
   public void sendAnnouncementEvent(String eventType, String key, Object payload) {
     sendEvent(announcementTopic, eventType, key, payload);
   }
@@ -82,21 +101,71 @@ public class KafkaMessageService {
   }
 
   private void sendEvent(String topic, String eventType, String key, Object payload) {
-    EventEnvelope envelope = new EventEnvelope(eventType, Instant.now().toString(), payload);
-
     try {
-      String json = objectMapper.writeValueAsString(envelope);
-      kafkaTemplate.send(topic, key, json);
-    } catch (JsonProcessingException ex) {
+      enqueue(topic, key, eventCodec.encode(eventType, System.currentTimeMillis(), payload));
+    } catch (IllegalArgumentException ex) {
       logger.warn("Failed to serialize Kafka event {}", eventType, ex);
     }
   }
 
-  private record EventEnvelope(String type, String timestamp, Object payload) {
+  /**
+   * Событие пишется в outbox_events в текущей транзакции: откат транзакции отменяет и событие,
+   * а запрос не ждёт брокера. Отправляет его OutboxRelay — сразу после коммита или по таймеру.
+   */
+  private void enqueue(String topic, String key, byte[] payload) {
+    if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      // INSERT в read-only транзакции отвергнет PostgreSQL, а вызывающий может проглотить ошибку
+      throw new IllegalStateException("Kafka event for topic " + topic
+          + " enqueued inside a read-only transaction; use a read-write or REQUIRES_NEW transaction");
+    }
+    outboxRepository.save(new OutboxEvent(topic, key, payload));
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          outboxRelay.wakeUp();
+        }
+      });
+    } else {
+      outboxRelay.wakeUp();
+    }
+  }
+
+  /**
+   * Id объявления из события announcement.*: ключ сообщения, а если он не числовой — payload.adId.
+   */
+  public Long readAdId(ConsumerRecord<String, byte[]> record) {
+    if (record.key() != null) {
+      try {
+        return Long.valueOf(record.key());
+      } catch (NumberFormatException ignored) {
+        // ключ не id — ищем в теле события
+      }
+    }
+    try {
+      return eventCodec.readLong(eventCodec.decode(record.value()), "adId");
+    } catch (IllegalArgumentException ex) {
+      logger.warn("Failed to parse announcement event: {}", ex.getMessage());
+      return null;
+    }
   }
 
-  @KafkaListener(topics = "${app.kafka.topic.audit:portal.audit.events}")
-  public void onAuditEvent(String payload) {
-    logger.info("Kafka audit event received: {}", payload);
+  /**
+   * Значение сообщения в читаемом виде для логов.
+   */
+  public String describe(byte[] value) {
+    return value == null ? "null" : eventCodec.toJson(value);
+  }
+
+  @KafkaListener(
+      topics = "${app.kafka.topic.audit:portal.audit.events}",
+      containerFactory = "batchListenerContainerFactory")
+  public void onAuditEvents(List<ConsumerRecord<String, byte[]>> records, Acknowledgment ack) {
+    logger.info("Kafka audit events received: {}", records.size());
+    if (logger.isDebugEnabled()) {
+      records.forEach(record -> logger.debug("Kafka audit event {}-{}@{}: {}",
+          record.topic(), record.partition(), record.offset(), describe(record.value())));
+    }
+    ack.acknowledge();
   }
 }
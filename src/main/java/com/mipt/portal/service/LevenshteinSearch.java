@@ -48,6 +48,163 @@ public class LevenshteinSearch {
     return p[n];
   }
 
+  /**
+   * Расстояние с порогом: точное значение, если оно не больше maxDistance, иначе maxDistance + 1.
+   * Сначала отсекает по разнице длин, затем для слов до 64 символов считает битово-параллельно (Майерс),
+   * для длинных — только по диагональной полосе ширины 2k+1 (отсечка Укконена).
+   */
+  public static int boundedLevenshteinDistance(CharSequence s, CharSequence t, int maxDistance) {
+    if (s == null || t == null) {
+      throw new IllegalArgumentException("Strings must not be null");
+    }
+    if (maxDistance < 0) {
+      throw new IllegalArgumentException("maxDistance must not be negative");
+    }
+
+    if (s.length() > t.length()) {
+      CharSequence tmp = s;
+      s = t;
+      t = tmp;
+    }
+    if (t.length() - s.length() > maxDistance) {
+      return maxDistance + 1;
+    }
+    if (s.isEmpty()) {
+      return t.length();
+    }
+
+    return s.length() <= Long.SIZE
+        ? myersDistance(s, t, maxDistance)
+        : bandedDistance(s, t, maxDistance);
+  }
+
+  /**
+   * Битово-параллельный алгоритм Майерса (в варианте Хюрё для глобального расстояния).
+   * Столбец матрицы хранится в двух 64-битных масках, поэтому pattern — не длиннее 64 символов.
+   */
+  public static int myersDistance(CharSequence pattern, CharSequence text) {
+    if (pattern.length() > Long.SIZE) {
+      throw new IllegalArgumentException("Pattern longer than 64 chars: " + pattern.length());
+    }
+    if (pattern.isEmpty()) {
+      return text.length();
+    }
+    return myersDistance(pattern, text, Integer.MAX_VALUE - 1);
+  }
+
+  private static int myersDistance(CharSequence pattern, CharSequence text, int maxDistance) {
+    int m = pattern.length();
+    int n = text.length();
+
+    // Маски вхождений для различных символов pattern; их мало, поэтому хватает линейного поиска
+    char[] alphabet = new char[m];
+    long[] masks = new long[m];
+    int alphabetSize = 0;
+    for (int i = 0; i < m; i++) {
+      char c = pattern.charAt(i);
+      int slot = indexOf(alphabet, alphabetSize, c);
+      if (slot < 0) {
+        slot = alphabetSize++;
+        alphabet[slot] = c;
+      }
+      masks[slot] |= 1L << i;
+    }
+
+    long last = 1L << (m - 1);
+    long pv = m == Long.SIZE ? -1L : (1L << m) - 1;
+    long mv = 0;
+    int score = m;
+
+    for (int j = 0; j < n; j++) {
+      int slot = indexOf(alphabet, alphabetSize, text.charAt(j));
+      long eq = slot < 0 ? 0 : masks[slot];
+      long xv = eq | mv;
+      long xh = (((eq & pv) + pv) ^ pv) | eq;
+      long ph = mv | ~(xh | pv);
+      long mh = pv & xh;
+      if ((ph & last) != 0) {
+        score++;
+      } else if ((mh & last) != 0) {
+        score--;
+      }
+      // Каждый оставшийся символ text уменьшает расстояние максимум на единицу
+      if (score - (n - j - 1) > maxDistance) {
+        return maxDistance + 1;
+      }
+      ph = (ph << 1) | 1;
+      mh <<= 1;
+      pv = mh | ~(xv | ph);
+      mv = ph & xv;
+    }
+    return Math.min(score, maxDistance + 1);
+  }
+
+  // s не длиннее t, разница длин уже не больше k
+  private static int bandedDistance(CharSequence s, CharSequence t, int k) {
+    int n = s.length();
+    int m = t.length();
+    int outside = k + 1;
+
+    int[] p = new int[n + 1];
+    int[] d = new int[n + 1];
+    for (int i = 0; i <= n; i++) {
+      p[i] = Math.min(i, outside);
+    }
+
+    for (int j = 1; j <= m; j++) {
+      char tj = t.charAt(j - 1);
+      int from = Math.max(1, j - k);
+      int to = Math.min(n, j + k);
+
+      d[0] = Math.min(j, outside);
+      if (from > 1) {
+        d[from - 1] = outside;
+      }
+      int rowMin = from == 1 ? d[0] : outside;
+      for (int i = from; i <= to; i++) {
+        int cost = s.charAt(i - 1) == tj ? 0 : 1;
+        int value = Math.min(Math.min(d[i - 1] + 1, p[i] + 1), p[i - 1] + cost);
+        d[i] = Math.min(value, outside);
+        rowMin = Math.min(rowMin, d[i]);
+      }
+      if (to < n) {
+        d[to + 1] = outside;
+      }
+      if (rowMin > k) {
+        return outside;
+      }
+
+      int[] tmp = p;
+      p = d;
+      d = tmp;
+    }
+    return p[n];
+  }
+
+  private static int indexOf(char[] alphabet, int size, char c) {
+    for (int i = 0; i < size; i++) {
+      if (alphabet[i] == c) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Наибольшее расстояние, при котором similarity ещё не ниже порога.
+   */
+  static int maxDistanceForSimilarity(int maxLength, double similarityThreshold) {
+    int k = (int) Math.floor((1.0 - similarityThreshold) * maxLength);
+    k = Math.max(-1, Math.min(k, maxLength));
+    while (k >= 0 && 1.0 - (double) k / maxLength < similarityThreshold) {
+      k--;
+    }
+    while (k < maxLength && 1.0 - (double) (k + 1) / maxLength >= similarityThreshold) {
+      k++;
+    }
+    return k;
+  }
+
   public static double normalizedLevenshteinDistance(String s1, String s2) {
     int maxLength = Math.max(s1.length(), s2.length());
     if (maxLength == 0) return 0.0;
@@ -61,7 +218,15 @@ public class LevenshteinSearch {
   }
 
   public static boolean isSimilar(String s1, String s2, double similarityThreshold) {
-    return similarity(s1, s2) >= similarityThreshold;
+    int maxLength = Math.max(s1.length(), s2.length());
+    if (maxLength == 0) {
+      return similarityThreshold <= 1.0;
+    }
+    int maxDistance = maxDistanceForSimilarity(maxLength, similarityThreshold);
+    if (maxDistance < 0) {
+      return false;
+    }
+    return boundedLevenshteinDistance(s1, s2, maxDistance) <= maxDistance;
   }
 
   public static boolean fuzzyContains(String text, String query, double similarityThreshold) {
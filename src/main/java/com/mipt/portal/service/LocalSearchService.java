@@ -0,0 +1,183 @@
+package com.mipt.portal.service;
+
+import com.mipt.portal.dto.AnnouncementSummaryDto;
+import com.mipt.portal.entity.Announcement;
+import com.mipt.portal.enums.AdStatus;
+import com.mipt.portal.infrastructure.search.InvertedIndex;
+import com.mipt.portal.repository.AnnouncementRepository;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Поиск с опечатками по ACTIVE-объявлениям без Elasticsearch.
+ * Индекс строится из Postgres при старте и дальше обновляется по событиям announcement.* из Kafka.
+ * У каждого экземпляра приложения свой индекс, поэтому и группа консьюмера своя.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LocalSearchService {
+
+  private static final int DEFAULT_LIMIT = 20;
+  private static final int MAX_LIMIT = 100;
+
+  private final AnnouncementRepository announcementRepository;
+  private final KafkaMessageService kafkaMessageService;
+
+  private final Set<Long> touchedDuringRebuild = ConcurrentHashMap.newKeySet();
+  private final ReentrantLock rebuildLock = new ReentrantLock();
+  private volatile InvertedIndex index = new InvertedIndex();
+  private volatile boolean rebuilding;
+
+  @Value("${app.search.local.rebuild-batch-size:500}")
+  private int rebuildBatchSize = 500;
+
+  /**
+   * Строит новый индекс keyset-батчами по id и подменяет им текущий одной записью ссылки:
+   * до этого поиск работает по старому индексу. Объявления, изменившиеся во время построения,
+   * после подмены перечитываются заново — батч мог прочитать их до изменения.
+   */
+  @Async
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuild() {
+    if (!rebuildLock.tryLock()) {
+      log.info("Local search index rebuild is already running");
+      return;
+    }
+    try {
+      long started = System.nanoTime();
+      touchedDuringRebuild.clear();
+      rebuilding = true;
+      InvertedIndex next = new InvertedIndex();
+      try {
+        long lastId = 0;
+        while (true) {
+          List<Announcement> batch = announcementRepository.findByStatusAndIdGreaterThanOrderByIdAsc(
+              AdStatus.ACTIVE, lastId, PageRequest.of(0, rebuildBatchSize));
+          if (batch.isEmpty()) {
+            break;
+          }
+          batch.forEach(ad -> next.put(ad.getId(), indexedText(ad)));
+          lastId = batch.get(batch.size() - 1).getId();
+        }
+        index = next;
+      } finally {
+        rebuilding = false;
+      }
+
+      List<Long> touched = List.copyOf(touchedDuringRebuild);
+      touchedDuringRebuild.clear();
+      if (!touched.isEmpty()) {
+        refresh(touched);
+      }
+      log.info("Local search index built: {} announcements, {} terms in {} ms ({} replayed)",
+          next.documentCount(), next.termCount(), (System.nanoTime() - started) / 1_000_000, touched.size());
+    } finally {
+      rebuildLock.unlock();
+    }
+  }
+
+  // Пропускаем историю топика: актуальное состояние уже взято из БД при старте
+  @KafkaListener(
+      topics = "${app.kafka.topic.announcement:portal.announcement.events}",
+      groupId = "portal-local-search-${random.uuid}",
+      properties = "auto.offset.reset=latest",
+      containerFactory = "batchListenerContainerFactory")
+  public void onAnnouncementEvents(List<ConsumerRecord<String, byte[]>> records, Acknowledgment ack) {
+    Set<Long> adIds = new LinkedHashSet<>();
+    for (ConsumerRecord<String, byte[]> record : records) {
+      Long adId = kafkaMessageService.readAdId(record);
+      if (adId == null) {
+        log.warn("Announcement event without ad id: {}", kafkaMessageService.describe(record.value()));
+        continue;
+      }
+      adIds.add(adId);
+    }
+    if (!adIds.isEmpty()) {
+      refresh(adIds);
+    }
+    ack.acknowledge();
+  }
+
+  /**
+   * Перечитывает объявления из БД одним запросом: ACTIVE — (пере)индексируются,
+   * остальные и удалённые — убираются из индекса.
+   */
+  @Transactional(readOnly = true)
+  public void refresh(Collection<Long> adIds) {
+    // Отметка ставится до чтения из БД: если запись уйдёт в индекс, который сейчас подменяется,
+    // перестройка перечитает эти id уже в новый
+    if (rebuilding) {
+      touchedDuringRebuild.addAll(adIds);
+    }
+    InvertedIndex target = index;
+    Set<Long> missing = new HashSet<>(adIds);
+    for (Announcement ad : announcementRepository.findAllById(adIds)) {
+      missing.remove(ad.getId());
+      if (ad.getStatus() == AdStatus.ACTIVE) {
+        target.put(ad.getId(), indexedText(ad));
+      } else {
+        target.remove(ad.getId());
+      }
+    }
+    missing.forEach(target::remove);
+  }
+
+  @Transactional(readOnly = true)
+  public List<AnnouncementSummaryDto> search(String query, Integer limit) {
+    int pageSize = (limit == null || limit <= 0) ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+    List<Long> ids = index.search(query, pageSize);
+    if (ids.isEmpty()) {
+      return List.of();
+    }
+
+    // Сохраняем порядок релевантности; объявления, успевшие уйти из ACTIVE, отбрасываем
+    Map<Long, AnnouncementSummaryDto> byId = announcementRepository
+        .findSummariesByIdInAndStatus(ids, AdStatus.ACTIVE).stream()
+        .collect(Collectors.toMap(AnnouncementSummaryDto::getId, Function.identity()));
+    return ids.stream()
+        .map(byId::get)
+        .filter(Objects::nonNull)
+        .toList();
+  }
+
+
+  private static String indexedText(Announcement ad) {
+    StringBuilder text = new StringBuilder();
+    append(text, ad.getTitle());
+    append(text, ad.getDescription());
+    append(text, ad.getSubcategory());
+    append(text, ad.getLocation());
+    if (ad.getTags() != null) {
+      ad.getTags().forEach(tag -> append(text, tag));
+    }
+    return text.toString();
+  }
+
+  private static void append(StringBuilder text, String value) {
+    if (value != null && !value.isBlank()) {
+      text.append(value).append(' ');
+    }
+  }
+}
@@ -1,56 +1,243 @@
 package com.mipt.portal.service;
 
 //import com.mipt.portal.announcement.AnnouncementRepository;
+import com.mipt.portal.dto.PhotoMetadata;
 import com.mipt.portal.entity.Announcement;
+import com.mipt.portal.entity.AnnouncementPhoto;
+import com.mipt.portal.enums.PhotoSize;
+import com.mipt.portal.infrastructure.storage.PhotoStore;
+import com.mipt.portal.repository.AnnouncementPhotoRepository;
 import com.mipt.portal.repository.AnnouncementRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class MediaService {
 
-private final AnnouncementRepository announcementRepository;
+  private final AnnouncementRepository announcementRepository;
+  private final AnnouncementPhotoRepository photoRepository;
+  private final PhotoStore photoStore;
+  private final PhotoVariantService photoVariantService;
+  private final PlatformTransactionManager transactionManager;
 
-// 1. Перевод фото в байтовый массив
-public byte[] fileToBytes(String filePath) throws IOException {
-  return Files.readAllBytes(Paths.get(filePath));
-}
+  @Value("${app.storage.photos.max-per-ad:10}")
+  private int maxPhotosPerAd;
 
-// из формы
-public byte[] multipartFileToBytes(MultipartFile file) throws IOException {
-  return file.getBytes();
-}
+  // 1. Перевод фото в байтовый массив
+  public byte[] fileToBytes(String filePath) throws IOException {
+    return Files.readAllBytes(Paths.get(filePath));
+  }
 
-// 2. Сохранение массива в photo Announcement
+  // из формы
+  public byte[] multipartFileToBytes(MultipartFile file) throws IOException {
+    return file.getBytes();
+  }
+
+  // 2. Замена обложки (фото с индексом 0); байты уходят в PhotoStore, в БД остаётся только ключ
   @Transactional
-  public void savePhoto(Long announcementId, byte[] photoData) {
-    Announcement announcement = announcementRepository.findById(announcementId).orElseThrow(() -> new RuntimeException("Объявление не найдено"));
+  public void savePhoto(Long announcementId, byte[] photoData) throws IOException {
+    Announcement announcement = announcementRepository.findByIdWithLock(announcementId).orElseThrow(() -> new RuntimeException("Объявление не найдено"));
 
-    announcement.setPhoto(photoData);
-    announcementRepository.save(announcement);
+    replaceCover(announcement, store(() -> new ByteArrayInputStream(photoData)));
+  }
+
+  // из формы — поток пишется на диск без загрузки файла в память целиком
+  @Transactional
+  public void savePhoto(Long announcementId, MultipartFile file) throws IOException {
+    Announcement announcement = announcementRepository.findByIdWithLock(announcementId).orElseThrow(() -> new RuntimeException("Объявление не найдено"));
+
+    replaceCover(announcement, store(file::getInputStream));
+  }
+
+  // Пакетная загрузка: фото добавляются в конец списка, каждый файл пишется потоком
+  @Transactional
+  public int addPhotos(Long announcementId, List<MultipartFile> files) throws IOException {
+    Announcement announcement = announcementRepository.findByIdWithLock(announcementId).orElseThrow(() -> new RuntimeException("Объявление не найдено"));
+
+    List<MultipartFile> nonEmpty = files.stream().filter(file -> file != null && !file.isEmpty()).toList();
+    int nextPosition = photoRepository.findMaxPosition(announcementId) + 1;
+    if (nextPosition + nonEmpty.size() > maxPhotosPerAd) {
+      throw new IllegalArgumentException("Можно загрузить не больше " + maxPhotosPerAd + " фото");
+    }
+
+    for (MultipartFile file : nonEmpty) {
+      String photoKey = store(file::getInputStream);
+      AnnouncementPhoto photo = new AnnouncementPhoto();
+      photo.setAdId(announcementId);
+      photo.setPosition(nextPosition++);
+      photo.setPhotoKey(photoKey);
+      photo.setContentType(photoStore.detectContentType(photoKey));
+      photoRepository.save(photo);
+      photoVariantService.generateAsync(photoKey);
+    }
+
+    syncCover(announcement);
+    log.info("Added {} photos to announcement {}", nonEmpty.size(), announcementId);
+    return nonEmpty.size();
+  }
+
+  // 3. Удаление фото
+  @Transactional
+  public void deletePhoto(Long announcementId) throws IOException {
+    deletePhoto(announcementId, 0);
+  }
+
+  @Transactional
+  public boolean deletePhoto(Long announcementId, int index) {
+    Announcement announcement = announcementRepository.findByIdWithLock(announcementId).orElseThrow(() -> new RuntimeException("Объявление не найдено"));
+    Optional<AnnouncementPhoto> photo = photoRepository.findByAdIdAndPosition(announcementId, index);
+    if (photo.isEmpty()) {
+      return false;
+    }
+
+    photoRepository.delete(photo.get());
+    photoRepository.shiftLeftAfter(announcementId, index);
+    syncCover(announcement);
+    releaseIfUnused(photo.get().getPhotoKey());
+    return true;
   }
 
-// 3. Удаление фото
-@Transactional
-public void deletePhoto(Long announcementId) {
-    Announcement announcement = announcementRepository.findById(announcementId).orElseThrow(() -> new RuntimeException("Объявление не найдено"));
-    announcement.setPhoto(new byte[0]);
+  @Transactional(readOnly = true)
+  public Optional<Resource> getPhoto(Long announcementId) {
+    return getPhotoMetadata(announcementId, 0)
+        .flatMap(metadata -> photoStore.load(metadata.key()));
+  }
+
+  // Только метаданные из БД — для условных GET файл не открывается
+  @Transactional(readOnly = true)
+  public Optional<PhotoMetadata> getPhotoMetadata(Long announcementId, int index) {
+    return photoRepository.findMetadata(announcementId, index);
+  }
+
+  @Transactional(readOnly = true)
+  public int getPhotoCount(Long announcementId) {
+    return (int) photoRepository.countByAdId(announcementId);
+  }
+
+  public Optional<Resource> loadPhoto(String photoKey) {
+    return photoStore.load(photoKey);
+  }
+
+  // Уменьшенная копия; если её ещё нет, ставим нарезку в очередь и возвращаем пусто
+  public Optional<Resource> loadVariant(String photoKey, PhotoSize size) {
+    Optional<Resource> variant = photoVariantService.findVariant(photoKey, size);
+    if (variant.isEmpty()) {
+      photoVariantService.generateAsync(photoKey);
+    }
+    return variant;
+  }
+
+  public String detectContentType(String photoKey) {
+    return photoStore.detectContentType(photoKey);
+  }
+
+  /**
+   * Пишет файл в PhotoStore и до конца транзакции держит блокировку его ключа.
+   * Дедупликация могла вернуть ключ файла, который очистка удалила до блокировки, — тогда пишем его заново.
+   * После блокировки очистка увидит нашу строку и файл не тронет.
+   */
+  private String store(PhotoContent content) throws IOException {
+    String photoKey;
+    try (InputStream in = content.open()) {
+      photoKey = photoStore.save(in);
+    }
+    photoRepository.lockPhotoKey(photoKey);
+    if (photoStore.load(photoKey).isEmpty()) {
+      try (InputStream in = content.open()) {
+        photoStore.save(in);
+      }
+    }
+    return photoKey;
+  }
+
+  private void replaceCover(Announcement announcement, String photoKey) {
+    AnnouncementPhoto cover = photoRepository.findByAdIdAndPosition(announcement.getId(), 0).orElse(null);
+    String previousKey = null;
+    if (cover == null) {
+      cover = new AnnouncementPhoto();
+      cover.setAdId(announcement.getId());
+      cover.setPosition(0);
+    } else if (photoKey.equals(cover.getPhotoKey())) {
+      return;
+    } else {
+      previousKey = cover.getPhotoKey();
+    }
+
+    cover.setPhotoKey(photoKey);
+    cover.setContentType(photoStore.detectContentType(photoKey));
+    photoRepository.save(cover);
+    syncCover(announcement);
+    releaseIfUnused(previousKey);
+    photoVariantService.generateAsync(photoKey);
+  }
+
+  // В строке ads дублируется ключ обложки — его хватает спискам без обращения к ad_photos
+  private void syncCover(Announcement announcement) {
+    Optional<AnnouncementPhoto> cover = photoRepository.findByAdIdAndPosition(announcement.getId(), 0);
+    announcement.setPhotoKey(cover.map(AnnouncementPhoto::getPhotoKey).orElse(null));
+    announcement.setPhotoContentType(cover.map(AnnouncementPhoto::getContentType).orElse(null));
+    announcement.setPhotoUpdatedAt(Instant.now());
     announcementRepository.save(announcement);
-}
+  }
 
-@Transactional(readOnly = true)
-public byte[] getPhoto(Long announcementId) {
-  Announcement announcement = announcementRepository.findById(announcementId)
-    .orElseThrow(() -> new RuntimeException("Объявление не найдено"));
-  return announcement.getPhoto();
+  // Файл общий для всех объявлений с тем же содержимым — после коммита удаляем, если ссылок не осталось
+  private void releaseIfUnused(String photoKey) {
+    if (photoKey == null) {
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        deleteIfUnreferenced(photoKey);
+      }
+    });
   }
-}
\ No newline at end of file
+
+  // Своя транзакция: проверка ссылок и удаление файла идут под блокировкой ключа, как и запись в store
+  private void deleteIfUnreferenced(String photoKey) {
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    try {
+      transaction.executeWithoutResult(status -> {
+        photoRepository.lockPhotoKey(photoKey);
+        if (photoRepository.existsByPhotoKey(photoKey) || announcementRepository.existsByPhotoKey(photoKey)) {
+          return;
+        }
+        try {
+          photoStore.delete(photoKey);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (RuntimeException e) {
+      log.warn("Failed to delete unused photo {}: {}", photoKey, e.getMessage());
+    }
+  }
+
+  @FunctionalInterface
+  private interface PhotoContent {
+    InputStream open() throws IOException;
+  }
+}
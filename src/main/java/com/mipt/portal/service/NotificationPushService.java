@@ -0,0 +1,89 @@
+package com.mipt.portal.service;
+
+import com.mipt.portal.dto.UnreadSummaryDto;
+import com.mipt.portal.infrastructure.kafka.EventCodec;
+import com.mipt.portal.infrastructure.sse.SseConnectionRegistry;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.http.MediaType;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Доставка уведомлений в браузер по SSE вместо опроса.
+ * Источник — события portal.notification.events (ключ — id получателя). Каждый экземпляр
+ * приложения читает топик своей группой, с конца, и раздаёт события только своим соединениям.
+ * После пачки каждому затронутому подключённому пользователю уходит свежая сводка непрочитанных.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NotificationPushService {
+
+  static final String UNREAD_EVENT = "unread";
+
+  private final SseConnectionRegistry registry;
+  private final NotificationService notificationService;
+  private final EventCodec eventCodec;
+
+  /**
+   * Открывает поток пользователя; первым событием идёт текущая сводка непрочитанных.
+   */
+  public SseEmitter subscribe(Long userId) {
+    SseEmitter emitter = registry.register(userId);
+    sendSummary(userId);
+    return emitter;
+  }
+
+  @KafkaListener(
+      topics = "${app.kafka.topic.notification:portal.notification.events}",
+      groupId = "portal-notification-push-${random.uuid}",
+      properties = "auto.offset.reset=latest",
+      containerFactory = "batchListenerContainerFactory")
+  public void onNotificationEvents(List<ConsumerRecord<String, byte[]>> records, Acknowledgment ack) {
+    Set<Long> touched = new LinkedHashSet<>();
+    for (ConsumerRecord<String, byte[]> record : records) {
+      Long userId = recipient(record.key());
+      if (userId == null || !registry.hasConnections(userId)) {
+        continue;
+      }
+      try {
+        String type = eventCodec.decode(record.value()).type();
+        String json = eventCodec.toJson(record.value());
+        registry.send(userId, () -> SseEmitter.event().name(type).data(json));
+        touched.add(userId);
+      } catch (IllegalArgumentException e) {
+        log.warn("Skipping undecodable notification event: {}", e.getMessage());
+      }
+    }
+    touched.forEach(this::sendSummary);
+    ack.acknowledge();
+  }
+
+  private void sendSummary(Long userId) {
+    try {
+      UnreadSummaryDto summary = notificationService.getUnreadSummary(userId);
+      registry.send(userId, () -> SseEmitter.event().name(UNREAD_EVENT).data(summary, MediaType.APPLICATION_JSON));
+    } catch (Exception e) {
+      log.warn("Failed to push unread summary to user {}: {}", userId, e.getMessage());
+    }
+  }
+
+  // Ключ события — id получателя; нечисловые ключи пропускаем
+  private static Long recipient(String key) {
+    if (key == null) {
+      return null;
+    }
+    try {
+      return Long.valueOf(key);
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+}
@@ -1,168 +1,270 @@
 package com.mipt.portal.service;
 
+import com.mipt.portal.dto.NotificationsPageDto;
+import com.mipt.portal.dto.UnreadSummaryDto;
 import com.mipt.portal.dto.kafka.KafkaEventPayloads;
 import com.mipt.portal.entity.ModerationMessage;
+import com.mipt.portal.entity.Notification;
+import com.mipt.portal.entity.NotificationAdCounter;
+import com.mipt.portal.entity.NotificationCounter;
+import com.mipt.portal.repository.AnnouncementRepository;
+import com.mipt.portal.repository.NotificationAdCounterRepository;
+import com.mipt.portal.repository.NotificationCounterRepository;
+import com.mipt.portal.repository.NotificationRepository;
+import com.mipt.portal.repository.SearchCursor;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-
+/**
+ * Входящие уведомления пользователей в таблице notifications.
+ * Число непрочитанных ведётся инкрементально в notification_counters (по пользователю) и
+ * notification_ad_counters (по объявлению) тем же оператором, что меняет уведомления: счётчики
+ * сдвигаются ровно на число реально изменённых строк, поэтому все узлы за балансировщиком видят
+ * одно и то же значение, а чтение счётчика не зависит от длины истории. Отдельное уведомление
+ * находится по первичному ключу. Входящие читаются keyset-страницами.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class NotificationService {
 
-  // Хранилище уведомлений
-  private final Map<Long, List<ModerationMessage>> notificationStorage = new ConcurrentHashMap<>();
-  private long nextId = 1;
+  private static final int DEFAULT_PAGE_SIZE = 20;
+  private static final int MAX_PAGE_SIZE = 100;
+  private static final String CURSOR_FIELD = "createdAt";
 
+  private final NotificationRepository notificationRepository;
+  private final NotificationCounterRepository counterRepository;
+  private final NotificationAdCounterRepository adCounterRepository;
+  private final AnnouncementRepository announcementRepository;
   private final KafkaMessageService kafkaMessageService;
 
-  // Получить уведомления для списка объявлений
-  public List<ModerationMessage> getUserNotifications(List<Long> adIds) {
-    log.info("Загрузка уведомлений для объявлений: {}", adIds);
-    if (adIds == null || adIds.isEmpty()) {
-      return List.of();
+  /**
+   * Страница входящих, новые сверху.
+   */
+  @Transactional(readOnly = true)
+  public NotificationsPageDto getInbox(Long userId, String cursor, Integer limit) {
+    int pageSize = (limit == null || limit <= 0) ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+    PageRequest window = PageRequest.of(0, pageSize + 1);
+
+    List<Notification> rows;
+    if (cursor != null && !cursor.isBlank()) {
+      SearchCursor after = SearchCursor.decode(cursor, CURSOR_FIELD);
+      rows = notificationRepository.findInboxAfter(userId, (Instant) after.sortValue(), after.id(), window);
+    } else {
+      rows = notificationRepository.findInboxFirstPage(userId, window);
     }
 
-    List<ModerationMessage> result = new ArrayList<>();
-    for (Long adId : adIds) {
-      List<ModerationMessage> notifications = notificationStorage.get(adId);
-      if (notifications != null) {
-        result.addAll(notifications);
-      }
+    boolean hasMore = rows.size() > pageSize;
+    List<Notification> page = hasMore ? rows.subList(0, pageSize) : rows;
+
+    String nextCursor = null;
+    if (hasMore) {
+      Notification last = page.get(page.size() - 1);
+      nextCursor = new SearchCursor(CURSOR_FIELD, last.getCreatedAt(), last.getId()).encode();
     }
-    return result;
+    List<ModerationMessage> items = page.stream().map(this::toMessage).toList();
+    return new NotificationsPageDto(items, nextCursor, hasMore, getUnreadCount(userId));
+  }
+
+  @Transactional(readOnly = true)
+  public int getUnreadCount(Long userId) {
+    return counterRepository.findUnreadCount(userId).orElse(0);
   }
 
-  // Получить количество непрочитанных
-  public int getUnreadCount(List<Long> adIds) {
-    log.info("Подсчет непрочитанных уведомлений для объявлений: {}", adIds);
+  // Получить уведомления пользователя по его объявлениям
+  @Transactional(readOnly = true)
+  public List<ModerationMessage> getUserNotifications(Long userId, List<Long> adIds) {
+    log.debug("Загрузка уведомлений пользователя {} для объявлений: {}", userId, adIds);
+    if (adIds == null || adIds.isEmpty()) {
+      return List.of();
+    }
+    return notificationRepository.findByUserIdAndAdIds(userId, adIds).stream().map(this::toMessage).toList();
+  }
 
+  // Получить количество непрочитанных по объявлениям — сумма счётчиков, без обхода истории
+  @Transactional(readOnly = true)
+  public int getUnreadCount(Long userId, List<Long> adIds) {
     if (adIds == null || adIds.isEmpty()) {
       return 0;
     }
+    return (int) adCounterRepository.sumUnread(userId, adIds);
+  }
 
-    int count = 0;
-    for (Long adId : adIds) {
-      List<ModerationMessage> notifications = notificationStorage.get(adId);
-      if (notifications != null) {
-        count += notifications.stream().filter(n -> !n.getIsRead()).count();
-      }
+  /**
+   * Сводка для колокольчика: всего непрочитанных, разбивка по объявлениям и id последнего
+   * уведомления. Читает только строки счётчиков пользователя, поэтому её можно опрашивать часто.
+   */
+  @Transactional(readOnly = true)
+  public UnreadSummaryDto getUnreadSummary(Long userId) {
+    Optional<NotificationCounter> counter = counterRepository.findById(userId);
+    if (counter.isEmpty() || counter.get().getUnreadCount() == 0) {
+      return new UnreadSummaryDto(0, Map.of(),
+          counter.map(NotificationCounter::getLatestNotificationId).orElse(null));
     }
-    return count;
+    Map<Long, Integer> byAd = new LinkedHashMap<>();
+    for (NotificationAdCounter adCounter : adCounterRepository.findUnreadByUserId(userId)) {
+      byAd.put(adCounter.getId().getAdId(), adCounter.getUnreadCount());
+    }
+    return new UnreadSummaryDto(counter.get().getUnreadCount(), byAd, counter.get().getLatestNotificationId());
   }
 
   // Пометить как прочитанное
-  public boolean markAsRead(Long notificationId) {
+  @Transactional
+  public boolean markAsRead(Long userId, Long notificationId) {
     log.info("Пометка уведомления {} как прочитанного", notificationId);
 
-    for (List<ModerationMessage> notifications : notificationStorage.values()) {
-      for (ModerationMessage msg : notifications) {
-        if (msg.getId().equals(notificationId)) {
-          msg.setIsRead(true);
-          kafkaMessageService.sendNotificationEvent(
-              "notification.read",
-              String.valueOf(notificationId),
-              new KafkaEventPayloads.NotificationRead(notificationId)
-          );
-          return true;
-        }
-      }
+    if (notificationRepository.markRead(notificationId, userId) == 0) {
+      // уже прочитано или чужое
+      return notificationRepository.findUserIdById(notificationId).filter(userId::equals).isPresent();
     }
-    return false;
+    kafkaMessageService.sendNotificationEvent(
+        "notification.read",
+        String.valueOf(userId),
+        new KafkaEventPayloads.NotificationRead(notificationId)
+    );
+    return true;
   }
 
-  // Удалить уведомление
-  public boolean deleteNotification(Long notificationId) {
-    log.info("Удаление уведомления {}", notificationId);
+  @Transactional
+  public boolean markAllAsRead(Long userId) {
+    log.info("Пометка всех уведомлений пользователя {} как прочитанных", userId);
 
-    for (List<ModerationMessage> notifications : notificationStorage.values()) {
-      if (notifications.removeIf(n -> n.getId().equals(notificationId))) {
-        kafkaMessageService.sendNotificationEvent(
-            "notification.deleted",
-            String.valueOf(notificationId),
-            new KafkaEventPayloads.NotificationDeleted(notificationId)
-        );
-        return true;
-      }
+    if (notificationRepository.markAllRead(userId) > 0) {
+      kafkaMessageService.sendNotificationEvent(
+          "notification.all_read",
+          String.valueOf(userId),
+          new KafkaEventPayloads.NotificationAllRead(null)
+      );
     }
-    return false;
+    return true;
   }
 
-  // Удалить все уведомления для объявлений
-  public boolean deleteAllNotifications(List<Long> adIds) {
-    log.info("Удаление всех уведомлений для объявлений: {}", adIds);
-
-    try {
-      if (adIds == null || adIds.isEmpty()) {
-        return true;
-      }
+  @Transactional
+  public boolean markAllAsRead(Long userId, List<Long> adIds) {
+    log.info("Пометка всех уведомлений как прочитанных для объявлений: {}", adIds);
 
-      for (Long adId : adIds) {
-        notificationStorage.remove(adId);
-      }
+    if (adIds == null || adIds.isEmpty()) {
+      return true;
+    }
+    if (notificationRepository.markAllReadByAdIds(userId, adIds) > 0) {
       kafkaMessageService.sendNotificationEvent(
-          "notification.all_deleted",
-          "bulk",
-          Map.of("adIds", adIds)
+          "notification.all_read",
+          String.valueOf(userId),
+          new KafkaEventPayloads.NotificationAllRead(List.copyOf(adIds))
       );
-      return true;
-    } catch (Exception e) {
-      log.error("Ошибка при удалении всех уведомлений: {}", e.getMessage());
+    }
+    return true;
+  }
+
+  // Удалить уведомление
+  @Transactional
+  public boolean deleteNotification(Long userId, Long notificationId) {
+    log.info("Удаление уведомления {}", notificationId);
+
+    if (notificationRepository.deleteOne(notificationId, userId) == 0) {
       return false;
     }
+    kafkaMessageService.sendNotificationEvent(
+        "notification.deleted",
+        String.valueOf(userId),
+        new KafkaEventPayloads.NotificationDeleted(notificationId)
+    );
+    return true;
   }
 
-  public boolean markAllAsRead(List<Long> adIds) {
-    log.info("Пометка всех уведомлений как прочитанных для объявлений: {}", adIds);
+  // Удалить все уведомления для объявлений
+  @Transactional
+  public boolean deleteAllNotifications(Long userId, List<Long> adIds) {
+    log.info("Удаление всех уведомлений для объявлений: {}", adIds);
 
     if (adIds == null || adIds.isEmpty()) {
       return true;
     }
-
-    for (Long adId : adIds) {
-      List<ModerationMessage> notifications = notificationStorage.get(adId);
-      if (notifications != null) {
-        notifications.forEach(msg -> msg.setIsRead(true));
-      }
+    if (notificationRepository.deleteByAdIds(userId, adIds) > 0) {
+      kafkaMessageService.sendNotificationEvent(
+          "notification.all_deleted",
+          String.valueOf(userId),
+          new KafkaEventPayloads.NotificationAllDeleted(List.copyOf(adIds))
+      );
     }
-    kafkaMessageService.sendNotificationEvent(
-        "notification.all_read",
-        "bulk",
-        Map.of("adIds", adIds)
-    );
     return true;
   }
 
-  // Создать тестовое уведомление
+  /**
+   * Создаёт уведомление автору объявления.
+   */
+  @Transactional
   public ModerationMessage createNotification(Long adId, String action, String reason, String moderatorEmail) {
-    ModerationMessage msg = new ModerationMessage();
-    msg.setId(nextId++);
-    msg.setAdId(adId);
-    msg.setAction(action);
-    msg.setReason(reason);
-    msg.setModeratorEmail(moderatorEmail);
-    msg.setCreatedAt(LocalDateTime.now());
-    msg.setIsRead(false);
-
-    notificationStorage.computeIfAbsent(adId, k -> new ArrayList<>()).add(msg);
+    Long userId = announcementRepository.findAuthorIdById(adId)
+        .orElseThrow(() -> new IllegalArgumentException("Объявление не найдено: " + adId));
+
+    Notification saved = notificationRepository.save(
+        new Notification(userId, adId, action, reason, moderatorEmail));
+    counterRepository.registerCreated(userId, saved.getId());
+    adCounterRepository.increment(userId, adId);
     kafkaMessageService.sendNotificationEvent(
         "notification.created",
-        String.valueOf(msg.getId()),
+        String.valueOf(userId),
         new KafkaEventPayloads.NotificationCreated(
-            msg.getId(),
+            saved.getId(),
             adId,
             action,
             moderatorEmail,
             (reason != null && !reason.isBlank()) ? reason : null
         )
     );
+    return toMessage(saved);
+  }
+
+  /**
+   * Получатель уведомления — для служебных вызовов без сессии пользователя.
+   */
+  @Transactional(readOnly = true)
+  public Optional<Long> findRecipient(Long notificationId) {
+    return notificationRepository.findUserIdById(notificationId);
+  }
+
+  /**
+   * Объявления, сгруппированные по автору (получателю их уведомлений), в порядке запроса.
+   */
+  @Transactional(readOnly = true)
+  public Map<Long, List<Long>> groupByRecipient(Collection<Long> adIds) {
+    Map<Long, Long> authorByAd = new LinkedHashMap<>();
+    for (Object[] row : announcementRepository.findAuthorIdsByIdIn(adIds)) {
+      authorByAd.put((Long) row[0], (Long) row[1]);
+    }
+    Map<Long, List<Long>> result = new LinkedHashMap<>();
+    for (Long adId : adIds) {
+      Long authorId = authorByAd.get(adId);
+      if (authorId != null) {
+        result.computeIfAbsent(authorId, k -> new ArrayList<>()).add(adId);
+      }
+    }
+    return result;
+  }
+
+  private ModerationMessage toMessage(Notification notification) {
+    ModerationMessage msg = new ModerationMessage();
+    msg.setId(notification.getId());
+    msg.setUserId(notification.getUserId());
+    msg.setAdId(notification.getAdId());
+    msg.setAction(notification.getAction());
+    msg.setReason(notification.getReason());
+    msg.setModeratorEmail(notification.getModeratorEmail());
+    msg.setCreatedAt(LocalDateTime.ofInstant(notification.getCreatedAt(), ZoneId.systemDefault()));
+    msg.setIsRead(notification.isRead());
     return msg;
   }
-}
\ No newline at end of file
+}
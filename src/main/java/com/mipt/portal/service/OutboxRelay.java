@@ -0,0 +1,213 @@
+package com.mipt.portal.service;
+
+import com.mipt.portal.entity.OutboxEvent;
+import com.mipt.portal.infrastructure.kafka.KafkaDeliveryStats;
+import com.mipt.portal.repository.OutboxEventRepository;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Переносит события из outbox_events в Kafka.
+ * Пачку разбирает только один экземпляр приложения за раз (транзакционная advisory-блокировка),
+ * иначе экземпляры со SKIP LOCKED публиковали бы более поздние строки одного ключа раньше ранних.
+ * Id выдаются при вставке, а транзакции коммитятся не по порядку id, поэтому relay берёт только
+ * строки транзакций, завершённых раньше любой ещё идущей (tx_id ниже xmin снимка): строка с большим id
+ * не уходит, пока не закоммитится или не откатится более ранняя транзакция. Долгая посторонняя
+ * транзакция задерживает relay на своё время.
+ * Строки отправляются асинхронно по порядку id, после подтверждения брокера помечаются
+ * отправленными. При ошибке помечается только префикс до первой неудачи, остальное уходит
+ * повторно (доставка at-least-once). Порядок по ключу сохраняется, пока отправки успешны; после
+ * ошибки более поздние строки того же ключа могли уже уйти и будут опубликованы ещё раз после
+ * неудачной, так что последним по каждому ключу приходит событие с наибольшим id.
+ * Кроме опроса по таймеру, relay будится после коммита транзакции, записавшей событие.
+ * Неотправленные строки и есть буфер повторов: он переживает рестарт и ограничен retention,
+ * а после ошибки брокера relay выдерживает растущую паузу.
+ */
+@Slf4j
+@Service
+public class OutboxRelay {
+
+  private static final int MAX_ERROR_LENGTH = 1000;
+  // Ключ advisory-блокировки relay ("outbox" в ASCII)
+  private static final long RELAY_LOCK_ID = 0x6F7574626F78L;
+
+  private final OutboxEventRepository outboxRepository;
+  private final KafkaTemplate<String, byte[]> kafkaTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final int batchSize;
+  private final long sendTimeoutMs;
+  private final Duration retention;
+  private final KafkaDeliveryStats deliveryStats;
+  private final long retryBackoffMs;
+  private final long maxRetryBackoffMs;
+
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+    Thread thread = new Thread(r, "outbox-relay");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private final AtomicBoolean drainScheduled = new AtomicBoolean();
+  // Пишутся только потоком relay
+  private int failureStreak;
+  private long retryNotBefore;
+
+  public OutboxRelay(
+      OutboxEventRepository outboxRepository,
+      KafkaTemplate<String, byte[]> kafkaTemplate,
+      TransactionTemplate transactionTemplate,
+      KafkaDeliveryStats deliveryStats,
+      @Value("${app.kafka.outbox.batch-size:200}") int batchSize,
+      @Value("${app.kafka.outbox.send-timeout-ms:10000}") long sendTimeoutMs,
+      @Value("${app.kafka.outbox.retention:P1D}") Duration retention,
+      @Value("${app.kafka.outbox.retry-backoff-ms:500}") long retryBackoffMs,
+      @Value("${app.kafka.outbox.max-retry-backoff-ms:30000}") long maxRetryBackoffMs) {
+    this.outboxRepository = outboxRepository;
+    this.kafkaTemplate = kafkaTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.batchSize = batchSize;
+    this.sendTimeoutMs = sendTimeoutMs;
+    this.retention = retention;
+    this.deliveryStats = deliveryStats;
+    this.retryBackoffMs = retryBackoffMs;
+    this.maxRetryBackoffMs = maxRetryBackoffMs;
+  }
+
+  /**
+   * Просит relay разобрать outbox в фоне; повторные вызовы до начала разбора схлопываются.
+   */
+  public void wakeUp() {
+    if (drainScheduled.compareAndSet(false, true)) {
+      try {
+        executor.execute(() -> {
+          drainScheduled.set(false);
+          drain();
+        });
+      } catch (RejectedExecutionException e) {
+        // приложение останавливается — строки останутся в outbox до следующего запуска
+        drainScheduled.set(false);
+      }
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${app.kafka.outbox.poll-interval-ms:1000}")
+  public void poll() {
+    wakeUp();
+  }
+
+  // Работает только в потоке relay, поэтому пачки не пересекаются внутри одного экземпляра
+  private void drain() {
+    // После ошибки брокера ждём с экспоненциальной паузой, а не долбим его каждым коммитом
+    if (System.currentTimeMillis() < retryNotBefore) {
+      return;
+    }
+    try {
+      BatchResult result;
+      do {
+        result = transactionTemplate.execute(status -> relayBatch());
+      } while (result != null && !result.failed() && result.sent() == batchSize);
+      if (result != null && result.failed()) {
+        backOff();
+      } else {
+        failureStreak = 0;
+      }
+    } catch (Exception e) {
+      log.error("Outbox relay failed: {}", e.getMessage(), e);
+      backOff();
+    }
+  }
+
+  private void backOff() {
+    long delay = Math.min(maxRetryBackoffMs, retryBackoffMs << Math.min(failureStreak, 16));
+    failureStreak++;
+    retryNotBefore = System.currentTimeMillis() + delay;
+  }
+
+  private BatchResult relayBatch() {
+    if (!outboxRepository.tryRelayLock(RELAY_LOCK_ID)) {
+      // outbox сейчас разбирает другой экземпляр
+      return new BatchResult(0, false);
+    }
+    List<OutboxEvent> batch = outboxRepository.lockNextBatch(batchSize);
+    if (batch.isEmpty()) {
+      return new BatchResult(0, false);
+    }
+
+    List<CompletableFuture<?>> futures = new ArrayList<>(batch.size());
+    for (OutboxEvent event : batch) {
+      futures.add(deliveryStats.track(event.getTopic(),
+          kafkaTemplate.send(event.getTopic(), event.getMessageKey(), event.getPayload())));
+    }
+
+    List<Long> sentIds = new ArrayList<>();
+    List<Long> failedIds = new ArrayList<>();
+    String error = null;
+    for (int i = 0; i < batch.size(); i++) {
+      Long id = batch.get(i).getId();
+      if (error != null) {
+        failedIds.add(id);
+        continue;
+      }
+      try {
+        futures.get(i).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        sentIds.add(id);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        error = "interrupted";
+        failedIds.add(id);
+      } catch (Exception e) {
+        error = e.getMessage();
+        failedIds.add(id);
+      }
+    }
+
+    if (!sentIds.isEmpty()) {
+      outboxRepository.markSent(sentIds, Instant.now());
+    }
+    if (!failedIds.isEmpty()) {
+      String message = error == null ? "unknown" : error;
+      outboxRepository.markFailed(failedIds,
+          message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+      log.warn("Outbox relay: {} events sent, {} left for retry: {}", sentIds.size(), failedIds.size(), message);
+      return new BatchResult(sentIds.size(), true);
+    }
+    log.debug("Outbox relay: {} events sent", sentIds.size());
+    return new BatchResult(sentIds.size(), false);
+  }
+
+  @Scheduled(fixedDelayString = "${app.kafka.outbox.cleanup-interval-ms:3600000}")
+  public void cleanup() {
+    Integer deleted = transactionTemplate.execute(
+        status -> outboxRepository.deleteSentBefore(Instant.now().minus(retention)));
+    if (deleted != null && deleted > 0) {
+      log.info("Outbox cleanup: {} sent events removed", deleted);
+    }
+  }
+
+  private record BatchResult(int sent, boolean failed) {
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdown();
+    try {
+      executor.awaitTermination(sendTimeoutMs, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,131 @@
+package com.mipt.portal.service;
+
+import com.mipt.portal.infrastructure.storage.PhotoStore;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+/**
+ * Переносит старые фото из колонки ads.photo (bytea) в PhotoStore.
+ * Идёт пачками по id и держит в памяти не больше одной картинки за раз.
+ */
+@Slf4j
+@Service
+public class PhotoMigrationService {
+
+  private final JdbcTemplate jdbcTemplate;
+  private final PhotoStore photoStore;
+  private final boolean enabled;
+  private final int batchSize;
+
+  public PhotoMigrationService(
+      JdbcTemplate jdbcTemplate,
+      PhotoStore photoStore,
+      @Value("${app.storage.photos.migration.enabled:true}") boolean enabled,
+      @Value("${app.storage.photos.migration.batch-size:20}") int batchSize) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.photoStore = photoStore;
+    this.enabled = enabled;
+    this.batchSize = batchSize;
+  }
+
+  @Async
+  @EventListener(ApplicationReadyEvent.class)
+  public void migrateOnStartup() {
+    if (!enabled) {
+      log.info("Legacy photo migration is disabled");
+      return;
+    }
+    try {
+      migrateAll();
+    } catch (Exception e) {
+      log.error("Legacy photo migration failed: {}", e.getMessage(), e);
+    }
+  }
+
+  public int migrateAll() {
+    if (!legacyColumnExists()) {
+      log.debug("Column ads.photo not found, nothing to migrate");
+      return 0;
+    }
+
+    // Пустые массивы оставались после старого deletePhoto — переносить их нечего
+    jdbcTemplate.update("UPDATE ads SET photo = NULL WHERE photo IS NOT NULL AND octet_length(photo) = 0");
+
+    int migrated = 0;
+    long lastId = 0;
+    List<Long> ids;
+    while (!(ids = nextBatch(lastId)).isEmpty()) {
+      for (Long id : ids) {
+        if (migrateOne(id)) {
+          migrated++;
+        }
+      }
+      lastId = ids.get(ids.size() - 1);
+      log.info("Legacy photo migration: {} photos moved so far (last ad id {})", migrated, lastId);
+    }
+
+    if (migrated > 0) {
+      log.info("Legacy photo migration finished, {} photos moved to photo store", migrated);
+    }
+    return migrated;
+  }
+
+  private List<Long> nextBatch(long afterId) {
+    return jdbcTemplate.queryForList(
+        "SELECT id FROM ads WHERE id > ? AND photo IS NOT NULL ORDER BY id LIMIT ?",
+        Long.class, afterId, batchSize);
+  }
+
+  private boolean migrateOne(Long adId) {
+    try {
+      String key = jdbcTemplate.query("SELECT photo FROM ads WHERE id = ?", rs -> {
+        if (!rs.next()) {
+          return null;
+        }
+        try (InputStream in = rs.getBinaryStream(1)) {
+          return in != null ? photoStore.save(in) : null;
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }, adId);
+
+      if (key == null) {
+        return false;
+      }
+      int updated = jdbcTemplate.update(
+          "UPDATE ads SET photo_key = ?, photo_content_type = ?, photo_updated_at = CURRENT_TIMESTAMP, photo = NULL "
+              + "WHERE id = ? AND photo_key IS NULL",
+          key, photoStore.detectContentType(key), adId);
+      if (updated == 0) {
+        // Новое фото загрузили после старта — старое просто отбрасываем
+        jdbcTemplate.update("UPDATE ads SET photo = NULL WHERE id = ?", adId);
+        return false;
+      }
+      jdbcTemplate.update(
+          "INSERT INTO ad_photos (ad_id, position, photo_key, content_type, created_at, updated_at) "
+              + "SELECT id, 0, photo_key, photo_content_type, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP FROM ads a "
+              + "WHERE a.id = ? AND NOT EXISTS (SELECT 1 FROM ad_photos p WHERE p.ad_id = a.id)",
+          adId);
+      return true;
+    } catch (RuntimeException e) {
+      log.error("Failed to migrate photo for ad {}: {}", adId, e.getMessage(), e);
+      return false;
+    }
+  }
+
+  private boolean legacyColumnExists() {
+    Integer count = jdbcTemplate.queryForObject(
+        "SELECT COUNT(*) FROM information_schema.columns WHERE LOWER(table_name) = 'ads' AND LOWER(column_name) = 'photo'",
+        Integer.class);
+    return count != null && count > 0;
+  }
+}
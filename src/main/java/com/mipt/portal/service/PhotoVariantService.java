@@ -0,0 +1,188 @@
+package com.mipt.portal.service;
+
+import com.mipt.portal.enums.PhotoSize;
+import com.mipt.portal.infrastructure.storage.PhotoStore;
+import jakarta.annotation.PreDestroy;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+/**
+ * Готовит уменьшенные JPEG-копии загруженных фото (160/480/1280 px по длинной стороне).
+ * Картинка декодируется один раз, размеры получаются последовательным уменьшением.
+ * Работает на собственном ограниченном пуле, чтобы не занимать потоки запросов.
+ */
+@Slf4j
+@Service
+public class PhotoVariantService {
+
+  private static final float JPEG_QUALITY = 0.82f;
+  // Защита от "бомб": 40 Мп в ARGB — это уже ~160 МБ кучи
+  private static final long MAX_PIXELS = 40_000_000L;
+  private static final List<PhotoSize> SIZES_DESCENDING = Arrays.stream(PhotoSize.values())
+      .sorted(Comparator.comparingInt(PhotoSize::getMaxSide).reversed())
+      .toList();
+
+  private final PhotoStore photoStore;
+  private final ThreadPoolExecutor executor;
+  private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+  public PhotoVariantService(
+      PhotoStore photoStore,
+      @Value("${app.storage.photos.variants.threads:2}") int threads,
+      @Value("${app.storage.photos.variants.queue-capacity:64}") int queueCapacity) {
+    this.photoStore = photoStore;
+    AtomicInteger counter = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        runnable -> {
+          Thread thread = new Thread(runnable, "photo-variant-" + counter.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        },
+        new ThreadPoolExecutor.AbortPolicy());
+  }
+
+  /**
+   * Ставит фото в очередь на нарезку. Если очередь полна, задача отбрасывается —
+   * варианты будут запрошены снова при первом обращении к ним.
+   */
+  public void generateAsync(String photoKey) {
+    if (photoKey == null || !inFlight.add(photoKey)) {
+      return;
+    }
+    try {
+      executor.execute(() -> {
+        try {
+          generate(photoKey);
+        } finally {
+          inFlight.remove(photoKey);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      inFlight.remove(photoKey);
+      log.warn("Photo variant queue is full, skipping {} for now", photoKey);
+    }
+  }
+
+  public Optional<Resource> findVariant(String photoKey, PhotoSize size) {
+    return photoStore.loadVariant(photoKey, size.getVariantName());
+  }
+
+  private void generate(String photoKey) {
+    long started = System.nanoTime();
+    try {
+      Optional<Resource> original = photoStore.load(photoKey);
+      if (original.isEmpty()) {
+        return;
+      }
+      BufferedImage source = decode(original.get(), photoKey);
+      if (source == null) {
+        return;
+      }
+
+      for (PhotoSize size : SIZES_DESCENDING) {
+        BufferedImage scaled = scale(source, size.getMaxSide());
+        photoStore.saveVariant(photoKey, size.getVariantName(), new ByteArrayInputStream(encodeJpeg(scaled)));
+        source = scaled;
+      }
+      log.debug("Photo variants for {} generated in {} ms", photoKey,
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    } catch (IOException | RuntimeException e) {
+      log.error("Failed to generate photo variants for {}: {}", photoKey, e.getMessage(), e);
+    }
+  }
+
+  private BufferedImage decode(Resource resource, String photoKey) throws IOException {
+    try (InputStream raw = resource.getInputStream();
+         ImageInputStream in = ImageIO.createImageInputStream(raw)) {
+      Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+      if (!readers.hasNext()) {
+        log.warn("Photo {} is not a decodable image, variants skipped", photoKey);
+        return null;
+      }
+      ImageReader reader = readers.next();
+      try {
+        reader.setInput(in, true, true);
+        long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+        if (pixels > MAX_PIXELS) {
+          log.warn("Photo {} is too large to resize ({} px), variants skipped", photoKey, pixels);
+          return null;
+        }
+        return reader.read(0);
+      } finally {
+        reader.dispose();
+      }
+    }
+  }
+
+  private static BufferedImage scale(BufferedImage source, int maxSide) {
+    int width = source.getWidth();
+    int height = source.getHeight();
+    double ratio = Math.min(1.0, (double) maxSide / Math.max(width, height));
+    int targetWidth = Math.max(1, (int) Math.round(width * ratio));
+    int targetHeight = Math.max(1, (int) Math.round(height * ratio));
+
+    // JPEG без альфа-канала: прозрачные области заливаем белым
+    BufferedImage result = new BufferedImage(targetWidth, targetHeight, BufferedImage.TYPE_INT_RGB);
+    Graphics2D g = result.createGraphics();
+    try {
+      g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+      g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+      g.setColor(Color.WHITE);
+      g.fillRect(0, 0, targetWidth, targetHeight);
+      g.drawImage(source, 0, 0, targetWidth, targetHeight, null);
+    } finally {
+      g.dispose();
+    }
+    return result;
+  }
+
+  private static byte[] encodeJpeg(BufferedImage image) throws IOException {
+    ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
+      writer.setOutput(out);
+      ImageWriteParam param = writer.getDefaultWriteParam();
+      param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+      param.setCompressionQuality(JPEG_QUALITY);
+      writer.write(null, new IIOImage(image, null, null), param);
+    } finally {
+      writer.dispose();
+    }
+    return bytes.toByteArray();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+}
@@ -8,6 +8,8 @@ import com.mipt.portal.repository.UserRepository;
 import com.mipt.portal.util.UserValidator;
 import com.mipt.portal.dto.kafka.KafkaEventPayloads;
 import com.mipt.portal.exception.InsufficientCoinsException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -31,6 +33,9 @@ public class UserService {
   private final EmailService emailService;
   private final KafkaMessageService kafkaMessageService;
 
+  @PersistenceContext
+  private EntityManager entityManager;
+
   @Transactional
   public Optional<User> registerUser(String email, String name, String password,
       String passwordAgain, Address address, String studyProgram, int course) {
@@ -63,7 +68,6 @@ public class UserService {
       user.setCourse(course);
       user.setRating(0.0);
       user.setCoins(0);
-      user.setAdList(new ArrayList<>());
       user.addRole(Role.USER); // устанавливаем роль пользователя по умолчанию
 
       User savedUser = userRepository.save(user);
@@ -131,10 +135,13 @@ public class UserService {
 
       log.info("User logged in successfully: {}", email);
 
+      // Метод идёт в read-only транзакции: отвязываем сущность, чтобы очистка пароля
+      // не попала в БД при флаше, а событие пишем в outbox отдельной транзакцией
+      entityManager.detach(user);
       user.setHashPassword(null);
       user.setSalt(null);
 
-      kafkaMessageService.sendUserEvent(
+      kafkaMessageService.sendUserEventInNewTransaction(
           "user.login",
           String.valueOf(user.getId()),
           new KafkaEventPayloads.UserLogin(user.getId(), user.getEmail())
@@ -209,77 +216,6 @@ public class UserService {
     }
   }
 
-  @Transactional
-  public Optional<Boolean> addAnnouncementId(Long userId, Long adId) {
-    try {
-      Optional<User> userOpt = userRepository.findById(userId);
-      if (userOpt.isEmpty()) {
-        log.warn("Add announcement failed - user not found: {}", userId);
-        return Optional.empty();
-      }
-
-      User user = userOpt.get();
-
-      if (user.getAdList() == null) {
-        user.setAdList(new ArrayList<>());
-      }
-
-      if (!user.getAdList().contains(adId)) {
-        user.getAdList().add(adId);
-        userRepository.save(user);
-        log.info("Announcement {} added to user {}", adId, userId);
-        kafkaMessageService.sendUserEvent(
-            "user.announcement.added",
-            String.valueOf(userId),
-            new KafkaEventPayloads.UserAnnouncementChanged(userId, adId)
-        );
-      }
-
-      return Optional.of(true);
-
-    } catch (Exception e) {
-      log.error("Error adding announcement to user: {}", e.getMessage(), e);
-      return Optional.empty();
-    }
-  }
-
-  @Transactional
-  public Optional<Boolean> deleteAnnouncementId(Long userId, Long adId) {
-    try {
-      Optional<User> userOpt = userRepository.findById(userId);
-      if (userOpt.isEmpty()) {
-        log.warn("Delete announcement failed - user not found: {}", userId);
-        return Optional.empty();
-      }
-
-      User user = userOpt.get();
-
-      if (user.getAdList() == null || user.getAdList().isEmpty()) {
-        log.warn("Delete announcement failed - user has no announcements: {}", userId);
-        return Optional.empty();
-      }
-
-      if (user.getAdList().contains(adId)) {
-        user.getAdList().remove(adId);
-        userRepository.save(user);
-        log.info("Announcement {} removed from user {}", adId, userId);
-        kafkaMessageService.sendUserEvent(
-            "user.announcement.removed",
-            String.valueOf(userId),
-            new KafkaEventPayloads.UserAnnouncementChanged(userId, adId)
-        );
-        return Optional.of(true);
-      } else {
-        log.warn("Delete announcement failed - announcement {} not found for user {}", adId, userId);
-        return Optional.empty();
-      }
-
-    } catch (Exception e) {
-      log.error("Error deleting announcement from user: {}", e.getMessage(), e);
-      return Optional.empty();
-    }
-  }
-
   @Transactional
   public Optional<Boolean> deleteUser(long userId) {
     try {
@@ -366,36 +302,6 @@ public class UserService {
     }
   }
 
-  @Transactional
-  public boolean toggleFavorite(Long userId, Long adId) {
-    User user = userRepository.findById(userId)
-        .orElseThrow(() -> new IllegalArgumentException("User not found: " + userId));
-    if (user.getAdList() == null) {
-      user.setAdList(new ArrayList<>());
-    }
-    boolean liked;
-    if (user.getAdList().contains(adId)) {
-      user.getAdList().remove(adId);
-      liked = false;
-    } else {
-      user.getAdList().add(adId);
-      liked = true;
-    }
-    userRepository.save(user);
-    kafkaMessageService.sendUserEvent(
-        "user.favorite.toggled",
-        String.valueOf(userId),
-        new KafkaEventPayloads.UserFavoriteToggled(userId, adId, liked)
-    );
-    return liked;
-  }
-
-  public List<Long> getFavoriteIds(Long userId) {
-    return userRepository.findById(userId)
-        .map(u -> u.getAdList() != null ? u.getAdList() : List.<Long>of())
-        .orElse(List.of());
-  }
-
   public boolean existsByEmail(String email) {
     try {
       return userRepository.existsByEmail(email);
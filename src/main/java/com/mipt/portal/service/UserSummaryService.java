@@ -0,0 +1,136 @@
+package com.mipt.portal.service;
+
+import com.mipt.portal.dto.UserSummaryDto;
+import com.mipt.portal.repository.UserRepository;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Имя, рейтинг и email пользователей пачкой: один запрос-проекция на все недостающие id
+ * вместо findById на каждое объявление или бронь, без EAGER-коллекций User.
+ * Перед БД стоит небольшой LRU-кэш; запись сбрасывается при изменении пользователя
+ * (см. UserSummaryChangeListener) и по TTL.
+ */
+@Slf4j
+@Service
+public class UserSummaryService {
+
+  private final UserRepository userRepository;
+  private final int maxSize;
+  private final long ttlNanos;
+
+  // access-order LinkedHashMap под общей блокировкой; размер небольшой, операции короткие
+  private final LinkedHashMap<Long, CachedSummary> cache;
+  // число сбросов; меняется под той же блокировкой, что и cache
+  private long evictions;
+
+  public UserSummaryService(
+      UserRepository userRepository,
+      @Value("${app.cache.user-summaries.max-size:1000}") int maxSize,
+      @Value("${app.cache.user-summaries.ttl:PT5M}") Duration ttl) {
+    this.userRepository = userRepository;
+    this.maxSize = maxSize;
+    this.ttlNanos = ttl.toNanos();
+    this.cache = new LinkedHashMap<>(64, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, CachedSummary> eldest) {
+        return size() > UserSummaryService.this.maxSize;
+      }
+    };
+  }
+
+  public Optional<UserSummaryDto> getSummary(Long userId) {
+    if (userId == null) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable(getSummaries(List.of(userId)).get(userId));
+  }
+
+  /**
+   * Сводки по всем найденным id; отсутствующих пользователей в результате нет.
+   */
+  public Map<Long, UserSummaryDto> getSummaries(Collection<Long> userIds) {
+    Map<Long, UserSummaryDto> result = new HashMap<>();
+    Set<Long> missing = new LinkedHashSet<>();
+    long now = System.nanoTime();
+    long generation;
+    synchronized (cache) {
+      generation = evictions;
+      for (Long id : userIds) {
+        if (id == null) {
+          continue;
+        }
+        CachedSummary cached = cache.get(id);
+        if (cached != null && now - cached.loadedAt() < ttlNanos) {
+          result.put(id, cached.summary());
+        } else {
+          missing.add(id);
+        }
+      }
+    }
+    if (missing.isEmpty()) {
+      return result;
+    }
+
+    List<UserSummaryDto> loaded = userRepository.findSummariesByIdIn(new ArrayList<>(missing));
+    log.debug("Loaded {} user summaries of {} requested", loaded.size(), missing.size());
+    synchronized (cache) {
+      // Если за время запроса пользователя сбросили, прочитанная сводка могла устареть — не кэшируем её
+      boolean fresh = generation == evictions;
+      for (UserSummaryDto summary : loaded) {
+        if (fresh) {
+          cache.put(summary.getId(), new CachedSummary(summary, now));
+        }
+        result.put(summary.getId(), summary);
+      }
+    }
+    return result;
+  }
+
+  public String getName(Long userId, String fallback) {
+    return getSummary(userId).map(UserSummaryDto::getName).orElse(fallback);
+  }
+
+  public Optional<String> getEmail(Long userId) {
+    return getSummary(userId).map(UserSummaryDto::getEmail);
+  }
+
+  /**
+   * Внутри транзакции сброс повторяется после коммита, чтобы параллельное чтение
+   * не вернуло в кэш ещё не закоммиченное старое значение.
+   */
+  public void evict(Long userId) {
+    evictNow(userId);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          evictNow(userId);
+        }
+      });
+    }
+  }
+
+  private void evictNow(Long userId) {
+    synchronized (cache) {
+      cache.remove(userId);
+      evictions++;
+    }
+  }
+
+  private record CachedSummary(UserSummaryDto summary, long loadedAt) {
+  }
+}
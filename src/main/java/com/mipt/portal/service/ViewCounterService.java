@@ -0,0 +1,130 @@
+package com.mipt.portal.service;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Счётчик просмотров с отложенной записью.
+ * Просмотр увеличивает LongAdder объявления в памяти; накопленные приращения периодически
+ * сбрасываются одним UPDATE ... FROM (VALUES ...) на пачку объявлений, а не транзакцией на каждый просмотр.
+ * При остановке приложения несброшенный остаток записывается.
+ */
+@Slf4j
+@Service
+public class ViewCounterService {
+
+  private final JdbcTemplate jdbcTemplate;
+  private final int batchSize;
+
+  private final Map<Long, LongAdder> counters = new ConcurrentHashMap<>();
+  private final ReentrantLock flushLock = new ReentrantLock();
+
+  public ViewCounterService(
+      JdbcTemplate jdbcTemplate,
+      @Value("${app.views.flush-batch-size:500}") int batchSize) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.batchSize = batchSize;
+  }
+
+  public void record(Long adId) {
+    if (adId == null) {
+      return;
+    }
+    counters.computeIfAbsent(adId, id -> new LongAdder()).increment();
+  }
+
+  @Scheduled(fixedDelayString = "${app.views.flush-interval-ms:5000}")
+  public void flush() {
+    if (!flushLock.tryLock()) {
+      return;
+    }
+    try {
+      writeDeltas(drain());
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  // Дожидаемся идущего по расписанию сброса и записываем остаток
+  @PreDestroy
+  public void shutdown() {
+    flushLock.lock();
+    try {
+      writeDeltas(drain());
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  private void writeDeltas(List<long[]> deltas) {
+    if (deltas.isEmpty()) {
+      return;
+    }
+    // Одинаковый порядок id у всех сбросов — строки блокируются без взаимных дедлоков
+    deltas.sort((a, b) -> Long.compare(a[0], b[0]));
+    for (int from = 0; from < deltas.size(); from += batchSize) {
+      List<long[]> batch = deltas.subList(from, Math.min(from + batchSize, deltas.size()));
+      try {
+        jdbcTemplate.update(updateSql(batch.size()), parameters(batch));
+      } catch (Exception e) {
+        log.error("Не удалось записать счётчики просмотров, вернём их в буфер: {}", e.getMessage());
+        restore(deltas.subList(from, deltas.size()));
+        return;
+      }
+    }
+    log.debug("Flushed view counters for {} announcements", deltas.size());
+  }
+
+  // Снимает накопленные приращения; объявления без новых просмотров с прошлого сброса удаляются из карты
+  private List<long[]> drain() {
+    List<long[]> deltas = new ArrayList<>();
+    for (Map.Entry<Long, LongAdder> entry : counters.entrySet()) {
+      LongAdder adder = entry.getValue();
+      long delta = adder.sumThenReset();
+      if (delta > 0) {
+        deltas.add(new long[]{entry.getKey(), delta});
+      } else if (counters.remove(entry.getKey(), adder)) {
+        // Просмотр мог успеть попасть в уже удалённый сумматор — переносим его обратно
+        long late = adder.sumThenReset();
+        if (late > 0) {
+          counters.computeIfAbsent(entry.getKey(), id -> new LongAdder()).add(late);
+        }
+      }
+    }
+    return deltas;
+  }
+
+  private void restore(List<long[]> deltas) {
+    for (long[] delta : deltas) {
+      counters.computeIfAbsent(delta[0], id -> new LongAdder()).add(delta[1]);
+    }
+  }
+
+  private static String updateSql(int rows) {
+    StringBuilder sql = new StringBuilder("UPDATE ads a SET view_count = COALESCE(a.view_count, 0) + v.delta FROM (VALUES ");
+    for (int i = 0; i < rows; i++) {
+      // Типы задаём в первой строке, остальные PostgreSQL выводит из неё
+      sql.append(i == 0 ? "(CAST(? AS BIGINT), CAST(? AS INTEGER))" : ", (?, ?)");
+    }
+    return sql.append(") AS v(id, delta) WHERE a.id = v.id").toString();
+  }
+
+  private static Object[] parameters(List<long[]> batch) {
+    Object[] args = new Object[batch.size() * 2];
+    for (int i = 0; i < batch.size(); i++) {
+      args[2 * i] = batch.get(i)[0];
+      args[2 * i + 1] = (int) Math.min(batch.get(i)[1], Integer.MAX_VALUE);
+    }
+    return args;
+  }
+}
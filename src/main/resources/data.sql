@@ -7,3 +7,114 @@ ALTER TABLE bookings ADD COLUMN IF NOT EXISTS cancelled_at TIMESTAMP;
 ALTER TABLE bookings ADD COLUMN IF NOT EXISTS cancel_notification_sent_at TIMESTAMP;
 ALTER TABLE bookings ADD COLUMN IF NOT EXISTS confirmed_at TIMESTAMP;
 ALTER TABLE bookings ADD COLUMN IF NOT EXISTS confirm_notification_sent_at TIMESTAMP;
+
+INSERT INTO ad_photos (ad_id, position, photo_key, content_type, created_at)
+SELECT a.id, 0, a.photo_key, a.photo_content_type, COALESCE(a.photo_updated_at, CURRENT_TIMESTAMP)
+FROM ads a
+WHERE a.photo_key IS NOT NULL
+  AND NOT EXISTS (SELECT 1 FROM ad_photos p WHERE p.ad_id = a.id);
+UPDATE ad_photos SET updated_at = created_at WHERE updated_at IS NULL;
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+ALTER TABLE ads ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('russian', COALESCE(title, '')), 'A') ||
+    setweight(to_tsvector('english', COALESCE(title, '')), 'A') ||
+    setweight(to_tsvector('russian', COALESCE(description, '')), 'B') ||
+    setweight(to_tsvector('english', COALESCE(description, '')), 'B')
+) STORED;
+CREATE INDEX IF NOT EXISTS idx_ads_search_vector ON ads USING GIN (search_vector);
+CREATE INDEX IF NOT EXISTS idx_ads_title_trgm ON ads USING GIN (LOWER(title) gin_trgm_ops);
+
+-- Id ACTIVE-объявлений, подходящих по тексту, — те же условия, что в AnnouncementRepository.findTextMatchIds.
+-- В HQL доступна как ad_text_match(a.id, :text) (SearchFunctionContributor); STABLE SQL-функция встраивается в план
+CREATE OR REPLACE FUNCTION ad_text_match_ids(q text) RETURNS SETOF bigint LANGUAGE sql STABLE AS $$
+    SELECT a.id FROM ads a, websearch_to_tsquery('russian', q) qr, websearch_to_tsquery('english', q) qe
+    WHERE a.status = 'ACTIVE'
+      AND (a.search_vector @@ qr OR a.search_vector @@ qe OR LOWER(q) <% LOWER(a.title))
+$$;
+
+-- Выдача ACTIVE-объявлений: частичные индексы под сортировки keyset-поиска и частые фильтры
+CREATE INDEX IF NOT EXISTS idx_ads_active_created ON ads (created_at DESC, id DESC) WHERE status = 'ACTIVE';
+CREATE INDEX IF NOT EXISTS idx_ads_active_price ON ads (price, id) WHERE status = 'ACTIVE';
+CREATE INDEX IF NOT EXISTS idx_ads_active_category_created ON ads (category, created_at DESC, id DESC) WHERE status = 'ACTIVE';
+CREATE INDEX IF NOT EXISTS idx_ads_active_category_price ON ads (category, price, id) WHERE status = 'ACTIVE';
+CREATE INDEX IF NOT EXISTS idx_ads_active_subcategory_created ON ads (subcategory, created_at DESC, id DESC) WHERE status = 'ACTIVE';
+CREATE INDEX IF NOT EXISTS idx_ads_active_condition_created ON ads (condition, created_at DESC, id DESC) WHERE status = 'ACTIVE';
+
+-- Фоновые задачи и счётчики по статусу
+CREATE INDEX IF NOT EXISTS idx_ads_status_updated_at ON ads (status, updated_at);
+CREATE INDEX IF NOT EXISTS idx_ads_status_notified_at ON ads (status, notified_at);
+CREATE INDEX IF NOT EXISTS idx_ads_category_status ON ads (category, status);
+CREATE INDEX IF NOT EXISTS idx_ads_user_id ON ads (user_id);
+
+-- Избранное: отдельная таблица вместо EAGER-коллекции users.adList (user_ad_list).
+-- Строки старой таблицы со своими объявлениями пользователя не переносятся: их источник — ads.user_id
+DO $$
+BEGIN
+    IF to_regclass('user_ad_list') IS NOT NULL THEN
+        INSERT INTO user_favorites (user_id, ad_id, created_at)
+        SELECT DISTINCT l.user_id, l.ad_id, CURRENT_TIMESTAMP
+        FROM user_ad_list l
+        JOIN ads a ON a.id = l.ad_id
+        JOIN users u ON u.id = l.user_id
+        WHERE a.user_id IS DISTINCT FROM l.user_id
+        ON CONFLICT (user_id, ad_id) DO NOTHING;
+        DROP TABLE user_ad_list;
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'fk_user_favorites_user') THEN
+        ALTER TABLE user_favorites ADD CONSTRAINT fk_user_favorites_user
+            FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE;
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'fk_user_favorites_ad') THEN
+        ALTER TABLE user_favorites ADD CONSTRAINT fk_user_favorites_ad
+            FOREIGN KEY (ad_id) REFERENCES ads (id) ON DELETE CASCADE;
+    END IF;
+END $$;
+CREATE INDEX IF NOT EXISTS idx_user_favorites_user_created ON user_favorites (user_id, created_at DESC, ad_id DESC);
+CREATE INDEX IF NOT EXISTS idx_user_favorites_ad ON user_favorites (ad_id);
+
+-- Outbox: relay выбирает неотправленные события по порядку id.
+-- tx_id — транзакция, записавшая событие: relay не берёт строки, пока не завершены все более ранние транзакции
+ALTER TABLE outbox_events ADD COLUMN IF NOT EXISTS tx_id xid8 NOT NULL DEFAULT pg_current_xact_id();
+CREATE INDEX IF NOT EXISTS idx_outbox_events_unsent ON outbox_events (id) WHERE sent_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_outbox_events_sent_at ON outbox_events (sent_at) WHERE sent_at IS NOT NULL;
+
+-- Outbox хранит закодированные EventCodec байты; старые JSON-строки остаются читаемыми как UTF-8
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_name = 'outbox_events' AND column_name = 'payload' AND data_type = 'text') THEN
+        ALTER TABLE outbox_events ALTER COLUMN payload TYPE BYTEA USING convert_to(payload, 'UTF8');
+    END IF;
+END $$;
+
+-- Входящие уведомления: страница пользователя по (created_at, id), счётчики непрочитанных по пользователю
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'fk_notifications_user') THEN
+        ALTER TABLE notifications ADD CONSTRAINT fk_notifications_user
+            FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE;
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'fk_notification_counters_user') THEN
+        ALTER TABLE notification_counters ADD CONSTRAINT fk_notification_counters_user
+            FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE;
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'fk_notification_ad_counters_user') THEN
+        ALTER TABLE notification_ad_counters ADD CONSTRAINT fk_notification_ad_counters_user
+            FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE;
+    END IF;
+END $$;
+
+-- Счётчики по объявлениям для уведомлений, созданных до их появления; существующие строки не трогаем
+INSERT INTO notification_ad_counters (user_id, ad_id, unread_count)
+SELECT n.user_id, n.ad_id, COUNT(*) FILTER (WHERE NOT n.is_read)
+FROM notifications n
+WHERE n.ad_id IS NOT NULL
+GROUP BY n.user_id, n.ad_id
+ON CONFLICT (user_id, ad_id) DO NOTHING;
+UPDATE notification_counters c SET latest_notification_id = m.max_id
+FROM (SELECT user_id, MAX(id) AS max_id FROM notifications GROUP BY user_id) m
+WHERE c.user_id = m.user_id AND c.latest_notification_id IS NULL;
+CREATE INDEX IF NOT EXISTS idx_notifications_user_created ON notifications (user_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_notifications_user_ad ON notifications (user_id, ad_id);